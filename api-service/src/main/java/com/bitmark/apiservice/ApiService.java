@@ -8,22 +8,33 @@ package com.bitmark.apiservice;
 
 import com.bitmark.apiservice.configuration.GlobalConfiguration;
 import com.bitmark.apiservice.configuration.Network;
+import com.bitmark.apiservice.metrics.MetricsRegistry;
+import com.bitmark.apiservice.metrics.MetricsSnapshot;
+import com.bitmark.apiservice.middleware.CompressionStats;
+import com.bitmark.apiservice.middleware.Converter;
 import com.bitmark.apiservice.params.*;
 import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
 import com.bitmark.apiservice.params.query.QueryParams;
 import com.bitmark.apiservice.response.*;
+import com.bitmark.apiservice.utils.AdaptiveLimiter;
+import com.bitmark.apiservice.utils.DirectExecutor;
 import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.SingleFlight;
 import com.bitmark.apiservice.utils.callback.Callback1;
 import com.bitmark.apiservice.utils.record.AssetRecord;
 import com.bitmark.apiservice.utils.record.BitmarkRecord;
 import com.bitmark.apiservice.utils.record.ShareGrantRecord;
 import com.bitmark.apiservice.utils.record.ShareRecord;
 import okhttp3.Headers;
+import okhttp3.Response;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 import static com.bitmark.apiservice.middleware.Converter.*;
-import static com.bitmark.apiservice.utils.Awaitility.await;
 
 public class ApiService implements BitmarkApi {
 
@@ -33,8 +44,38 @@ public class ApiService implements BitmarkApi {
 
     private static final String V3 = "v3";
 
+    private static final int MAX_ASSETS_WITH_GENESIS = 10000;
+
     private HttpClient client;
 
+    // Null if request coalescing is disabled
+    private SingleFlight singleFlight;
+
+    // Null if bitmark batching is disabled
+    private BitmarkBatchLoader bitmarkBatchLoader;
+
+    // Null if the callbacks run on the thread that completes the call
+    private Executor callbackExecutor;
+
+    private final int maxAssetsWithGenesis;
+
+    // Assets known to have a genesis bitmark, least recently used first.
+    // Issuing for them does not need to look it up again. Checked with get,
+    // which unlike containsKey moves a hit to the end of the access order
+    private final Map<String, Boolean> assetsWithGenesis = Collections
+            .synchronizedMap(new LinkedHashMap<String, Boolean>(
+                    16,
+                    0.75f,
+                    true
+            ) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, Boolean> eldest
+                ) {
+                    return size() > maxAssetsWithGenesis;
+                }
+            });
+
     private static volatile ApiService INSTANCE;
 
     public static ApiService getInstance() {
@@ -49,14 +90,82 @@ public class ApiService implements BitmarkApi {
     }
 
     private ApiService() {
-        final String endpoint = GlobalConfiguration.network() ==
-                                        Network.TEST_NET
-                                ? TEST_NET_ENDPOINT
-                                : LIVE_NET_ENDPOINT;
-        this.client = new HttpClientImpl(
-                endpoint,
-                GlobalConfiguration.apiToken()
+        this(
+                new HttpClientImpl(
+                        GlobalConfiguration.network() == Network.TEST_NET
+                        ? TEST_NET_ENDPOINT
+                        : LIVE_NET_ENDPOINT,
+                        GlobalConfiguration.apiToken()
+                ),
+                GlobalConfiguration.callbackExecutor(),
+                MAX_ASSETS_WITH_GENESIS
         );
+        if (GlobalConfiguration.requestCoalescing()) {
+            singleFlight = new SingleFlight();
+        }
+        if (GlobalConfiguration.bitmarkBatchWindow() > 0) {
+            bitmarkBatchLoader = new BitmarkBatchLoader(
+                    this::queryBitmarks,
+                    this::fetchBitmark,
+                    GlobalConfiguration.bitmarkBatchWindow(),
+                    GlobalConfiguration.bitmarkBatchSize()
+            );
+        }
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        metrics.gauge("coalescing.coalesced", this::getCoalescedRequestCount);
+        if (bitmarkBatchLoader != null) {
+            metrics.gauge("batching.batches", bitmarkBatchLoader::getBatchCount);
+            metrics.gauge("batching.loads", bitmarkBatchLoader::getLoadCount);
+        }
+    }
+
+    // Without request coalescing and bitmark batching, for the tests
+    ApiService(
+            HttpClient client,
+            Executor callbackExecutor,
+            int maxAssetsWithGenesis
+    ) {
+        this.client = client;
+        this.maxAssetsWithGenesis = maxAssetsWithGenesis;
+        if (callbackExecutor != DirectExecutor.INSTANCE) {
+            this.callbackExecutor = callbackExecutor;
+        }
+    }
+
+    public int getQueuedRequestCount() {
+        return client.getQueuedRequestCount();
+    }
+
+    public int getInFlightRequestCount() {
+        return client.getInFlightRequestCount();
+    }
+
+    /**
+     * @return latencies, traffic, retries and errors of every endpoint, the
+     * sign and pack timings of the params and the gauges of the client
+     */
+    public MetricsSnapshot getMetrics() {
+        return MetricsRegistry.getDefault().snapshot();
+    }
+
+    public CompressionStats getCompressionStats() {
+        return client.getCompressionStats();
+    }
+
+    /**
+     * @return the adaptive concurrency limiter of the endpoint class, or
+     * null if the concurrency is not limited
+     */
+    public AdaptiveLimiter getConcurrencyLimiter(EndpointClass endpointClass) {
+        return client.getConcurrencyLimiter(endpointClass);
+    }
+
+    /**
+     * @return number of GET requests that joined an identical request in
+     * flight instead of going to the network
+     */
+    public long getCoalescedRequestCount() {
+        return singleFlight == null ? 0 : singleFlight.getCoalescedCount();
     }
 
     @Override
@@ -64,22 +173,77 @@ public class ApiService implements BitmarkApi {
             IssuanceParams params,
             Callback1<List<BitmarkRecord>> callback
     ) {
-        try {
+        final Callback1<List<BitmarkRecord>> delivered = deliver(callback);
+        final String assetId = params.getAssetId();
+        if (assetsWithGenesis.get(assetId) != null) {
+            issue(params, false, delivered);
+            return;
+        }
 
-            String assetId = params.getAssetId();
-            GetBitmarksResponse bitmarksRes = await(bitmarkCallback -> listBitmarks(
-                    new BitmarkQueryBuilder().referencedAsset(assetId)
-                            .pending(true)
-                            .limit(1)
-                            .build(),
-                    bitmarkCallback
-            ));
-
-            params.setContainsGenesisBitmark(bitmarksRes.getBitmarks() != null && bitmarksRes
-                    .getBitmarks()
-                    .isEmpty());
+        queryBitmarks(
+                new BitmarkQueryBuilder().referencedAsset(assetId)
+                        .pending(true)
+                        .limit(1)
+                        .build(),
+                new Callback1<GetBitmarksResponse>() {
+                    @Override
+                    public void onSuccess(GetBitmarksResponse data) {
+                        List<BitmarkRecord> bitmarks = data.getBitmarks();
+                        if (bitmarks != null && !bitmarks.isEmpty()) {
+                            assetsWithGenesis.put(assetId, Boolean.TRUE);
+                        }
+                        // Sending signs the case chosen by lazy signing,
+                        // which must not hold the network thread this
+                        // result arrived on. Without a signing pool it is
+                        // signed by a single thread of the common pool.
+                        Runnable send = () -> issue(
+                                params,
+                                bitmarks != null && bitmarks.isEmpty(),
+                                delivered
+                        );
+                        ForkJoinPool pool = SigningPool.getPool();
+                        try {
+                            (pool != null ? pool : ForkJoinPool.commonPool())
+                                    .execute(send);
+                        } catch (RejectedExecutionException e) {
+                            send.run();
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        delivered.onError(throwable);
+                    }
+                }
+        );
+    }
+
+    private void issue(
+            IssuanceParams params,
+            boolean containsGenesisBitmark,
+            Callback1<List<BitmarkRecord>> callback
+    ) {
+        try {
+            params.setContainsGenesisBitmark(containsGenesisBitmark);
             final String path = String.format("/%s/issue", V3);
-            client.postAsync(path, params, toIssueResponse(callback));
+            client.postAsync(
+                    path,
+                    params,
+                    toIssueResponse(new Callback1<List<BitmarkRecord>>() {
+                        @Override
+                        public void onSuccess(List<BitmarkRecord> data) {
+                            if (containsGenesisBitmark) {
+                                assetsWithGenesis.put(params.getAssetId(), Boolean.TRUE);
+                            }
+                            callback.onSuccess(data);
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            callback.onError(throwable);
+                        }
+                    })
+            );
         } catch (Throwable e) {
             callback.onError(e);
         }
@@ -91,7 +255,7 @@ public class ApiService implements BitmarkApi {
             Callback1<RegistrationResponse> callback
     ) {
         final String path = String.format("/%s/register-asset", V3);
-        client.postAsync(path, params, toRegistrationResponse(callback));
+        client.postAsync(path, params, toRegistrationResponse(deliver(callback)));
     }
 
     @Override
@@ -100,7 +264,7 @@ public class ApiService implements BitmarkApi {
             Callback1<String> callback
     ) {
         final String path = String.format("/%s/transfer", V3);
-        client.postAsync(path, params, toTxId(callback));
+        client.postAsync(path, params, toTxId(deliver(callback)));
     }
 
     @Override
@@ -109,7 +273,7 @@ public class ApiService implements BitmarkApi {
             Callback1<String> callback
     ) {
         final String path = String.format("/%s/transfer", V3);
-        client.postAsync(path, params, toOfferId(callback));
+        client.postAsync(path, params, toOfferId(deliver(callback)));
     }
 
     @Override
@@ -119,13 +283,30 @@ public class ApiService implements BitmarkApi {
     ) {
         final String path = String.format("/%s/transfer", V3);
         Headers headers = Headers.of(params.buildHeaders());
-        client.patchAsync(path, headers, params, toTxId(callback));
+        client.patchAsync(
+                path,
+                headers,
+                params,
+                toTxId(deliver(callback))
+        );
     }
 
     @Override
     public void getBitmark(
             String bitmarkId, boolean includeAsset,
             Callback1<GetBitmarkResponse> callback
+    ) {
+        Callback1<GetBitmarkResponse> delivered = deliver(callback);
+        if (bitmarkBatchLoader != null) {
+            bitmarkBatchLoader.load(bitmarkId, includeAsset, delivered);
+        } else {
+            fetchBitmark(bitmarkId, includeAsset, delivered);
+        }
+    }
+
+    private void fetchBitmark(
+            String bitmarkId, boolean includeAsset,
+            Callback1<GetBitmarkResponse> callback
     ) {
         final String path = String.format(
                 "/%s/bitmarks/%s?asset=%b&pending=true",
@@ -134,7 +315,7 @@ public class ApiService implements BitmarkApi {
                 bitmarkId,
                 includeAsset
         );
-        client.getAsync(path, toGetBitmarkResponse(callback));
+        getAsync(path, null, Converter::toGetBitmarkResponse, callback);
 
     }
 
@@ -142,15 +323,22 @@ public class ApiService implements BitmarkApi {
     public void listBitmarks(
             QueryParams params,
             Callback1<GetBitmarksResponse> callback
+    ) {
+        queryBitmarks(params, deliver(callback));
+    }
+
+    private void queryBitmarks(
+            QueryParams params,
+            Callback1<GetBitmarksResponse> callback
     ) {
         final String path = String.format("/%s/bitmarks", V3);
-        client.getAsync(path, params, toGetBitmarksResponse(callback));
+        getAsync(path, params, Converter::toGetBitmarksResponse, callback);
     }
 
     @Override
     public void getAsset(String assetId, Callback1<AssetRecord> callback) {
         final String path = String.format("/%s/assets/%s", V3, assetId);
-        client.getAsync(path, toAssetRecord(callback));
+        getAsync(path, null, Converter::toAssetRecord, deliver(callback));
     }
 
     @Override
@@ -159,7 +347,7 @@ public class ApiService implements BitmarkApi {
             Callback1<List<AssetRecord>> callback
     ) {
         final String path = String.format("/%s/assets", V3);
-        client.getAsync(path, params, toAssetRecords(callback));
+        getAsync(path, params, Converter::toAssetRecords, deliver(callback));
     }
 
     @Override
@@ -173,7 +361,7 @@ public class ApiService implements BitmarkApi {
                 txId,
                 includeAsset
         );
-        client.getAsync(path, toGetTransactionResponse(callback));
+        getAsync(path, null, Converter::toGetTransactionResponse, deliver(callback));
     }
 
     @Override
@@ -182,7 +370,7 @@ public class ApiService implements BitmarkApi {
             Callback1<GetTransactionsResponse> callback
     ) {
         final String path = String.format("/%s/txs", V3);
-        client.getAsync(path, params, toGetTransactionsResponse(callback));
+        getAsync(path, params, Converter::toGetTransactionsResponse, deliver(callback));
     }
 
     @Override
@@ -191,7 +379,7 @@ public class ApiService implements BitmarkApi {
             Callback1<Pair<String, String>> callback
     ) {
         final String path = String.format("/%s/shares", V3);
-        client.postAsync(path, params, toCreateShareResponse(callback));
+        client.postAsync(path, params, toCreateShareResponse(deliver(callback)));
     }
 
     @Override
@@ -200,7 +388,7 @@ public class ApiService implements BitmarkApi {
             Callback1<String> callback
     ) {
         final String path = String.format("/%s/share-offer", V3);
-        client.postAsync(path, params, toGrantShareResponse(callback));
+        client.postAsync(path, params, toGrantShareResponse(deliver(callback)));
     }
 
     @Override
@@ -210,8 +398,9 @@ public class ApiService implements BitmarkApi {
     ) {
         final String path = String.format("/%s/share-offer", V3);
         Headers headers = Headers.of(params.buildHeaders());
+        Callback1<String> delivered = deliver(callback);
         client.patchAsync(path, headers, params,
-                params.isAccept() ? toTxId(callback) : toStatus(callback)
+                params.isAccept() ? toTxId(delivered) : toStatus(delivered)
         );
     }
 
@@ -222,7 +411,7 @@ public class ApiService implements BitmarkApi {
                 V3,
                 shareId
         );
-        client.getAsync(path, toGetShareResponse(callback));
+        getAsync(path, null, Converter::toGetShareResponse, deliver(callback));
     }
 
     @Override
@@ -231,7 +420,7 @@ public class ApiService implements BitmarkApi {
             Callback1<List<ShareRecord>> callback
     ) {
         final String path = String.format("/%s/shares?owner=%s", V3, owner);
-        client.getAsync(path, toListSharesResponse(callback));
+        getAsync(path, null, Converter::toListSharesResponse, deliver(callback));
     }
 
     @Override
@@ -246,7 +435,7 @@ public class ApiService implements BitmarkApi {
                 from,
                 to
         );
-        client.getAsync(path, toListShareOffersResponse(callback));
+        getAsync(path, null, Converter::toListShareOffersResponse, deliver(callback));
     }
 
     @Override
@@ -256,6 +445,62 @@ public class ApiService implements BitmarkApi {
     ) {
         final String path = String.format("/%s/ws-auth", V3);
         final Headers header = Headers.of(params.buildHeader());
-        client.postAsync(path, header, params, toWsToken(callback));
+        client.postAsync(path, header, params, toWsToken(deliver(callback)));
+    }
+
+    private <T> void getAsync(
+            String path,
+            QueryParams params,
+            Function<Callback1<T>, Callback1<Response>> converter,
+            Callback1<T> callback
+    ) {
+        if (singleFlight == null) {
+            client.getAsync(path, params, converter.apply(callback));
+            return;
+        }
+        final String key = params == null
+                           ? path
+                           : path + "?" + params.toUrlQuery();
+        singleFlight.execute(
+                key,
+                flightCallback -> client.getAsync(
+                        path,
+                        params,
+                        converter.apply(flightCallback)
+                ),
+                callback
+        );
+    }
+
+    /**
+     * Hand the result of a call over to the callback executor, once per
+     * call so that the callbacks of a coalesced or batched request run
+     * independently of each other.
+     */
+    private <T> Callback1<T> deliver(Callback1<T> callback) {
+        if (callbackExecutor == null) {
+            return callback;
+        }
+        return new Callback1<T>() {
+            @Override
+            public void onSuccess(T data) {
+                try {
+                    callbackExecutor.execute(() -> callback.onSuccess(data));
+                } catch (RejectedExecutionException e) {
+                    // The call succeeded, reporting it as failed could make
+                    // the caller send a write again
+                    callback.onSuccess(data);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                try {
+                    callbackExecutor.execute(() -> callback.onError(throwable));
+                } catch (RejectedExecutionException e) {
+                    callback.onError(throwable);
+                }
+            }
+        };
     }
 }
@@ -0,0 +1,171 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.params.*;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.*;
+import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.ShareGrantRecord;
+import com.bitmark.apiservice.utils.record.ShareRecord;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.bitmark.apiservice.utils.FutureUtils.toFuture;
+
+/**
+ * Implementation of {@link BitmarkAsyncApi} on top of {@link ApiService}.
+ * Every future is completed straight from the network callback, so no
+ * thread is held while a request is in flight.
+ */
+public class AsyncApiService implements BitmarkAsyncApi {
+
+    private final BitmarkApi api;
+
+    private static volatile AsyncApiService INSTANCE;
+
+    public static AsyncApiService getInstance() {
+        if (INSTANCE == null) {
+            synchronized (AsyncApiService.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new AsyncApiService(ApiService.getInstance());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public AsyncApiService(BitmarkApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public CompletableFuture<List<BitmarkRecord>> issueBitmark(
+            IssuanceParams params
+    ) {
+        return toFuture(callback -> api.issueBitmark(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<RegistrationResponse> registerAsset(
+            RegistrationParams params
+    ) {
+        return toFuture(callback -> api.registerAsset(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<String> transferBitmark(TransferParams params) {
+        return toFuture(callback -> api.transferBitmark(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<String> offerBitmark(TransferOfferParams params) {
+        return toFuture(callback -> api.offerBitmark(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<String> respondBitmarkOffer(
+            TransferResponseParams params
+    ) {
+        return toFuture(callback -> api.respondBitmarkOffer(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<GetBitmarkResponse> getBitmark(
+            String bitmarkId,
+            boolean includeAsset
+    ) {
+        return toFuture(callback -> api.getBitmark(
+                bitmarkId,
+                includeAsset,
+                callback
+        ));
+    }
+
+    @Override
+    public CompletableFuture<GetBitmarksResponse> listBitmarks(
+            QueryParams params
+    ) {
+        return toFuture(callback -> api.listBitmarks(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<AssetRecord> getAsset(String assetId) {
+        return toFuture(callback -> api.getAsset(assetId, callback));
+    }
+
+    @Override
+    public CompletableFuture<List<AssetRecord>> listAssets(QueryParams params) {
+        return toFuture(callback -> api.listAssets(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<GetTransactionResponse> getTransaction(
+            String txId,
+            boolean includeAsset
+    ) {
+        return toFuture(callback -> api.getTransaction(
+                txId,
+                includeAsset,
+                callback
+        ));
+    }
+
+    @Override
+    public CompletableFuture<GetTransactionsResponse> listTransactions(
+            QueryParams params
+    ) {
+        return toFuture(callback -> api.listTransactions(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<Pair<String, String>> createShare(
+            ShareParams params
+    ) {
+        return toFuture(callback -> api.createShare(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<String> grantShare(ShareGrantingParams params) {
+        return toFuture(callback -> api.grantShare(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<String> respondShareOffer(
+            GrantResponseParams params
+    ) {
+        return toFuture(callback -> api.respondShareOffer(params, callback));
+    }
+
+    @Override
+    public CompletableFuture<ShareRecord> getShare(String shareId) {
+        return toFuture(callback -> api.getShare(shareId, callback));
+    }
+
+    @Override
+    public CompletableFuture<List<ShareRecord>> listShares(String owner) {
+        return toFuture(callback -> api.listShares(owner, callback));
+    }
+
+    @Override
+    public CompletableFuture<List<ShareGrantRecord>> listShareOffer(
+            String from,
+            String to
+    ) {
+        return toFuture(callback -> api.listShareOffer(from, to, callback));
+    }
+
+    @Override
+    public CompletableFuture<String> registerWsToken(
+            RegisterWsTokenParams params
+    ) {
+        return toFuture(callback -> api.registerWsToken(params, callback));
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.params.*;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.*;
+import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.ShareGrantRecord;
+import com.bitmark.apiservice.utils.record.ShareRecord;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The {@link CompletableFuture} counterpart of {@link BitmarkApi}.
+ */
+public interface BitmarkAsyncApi {
+
+    CompletableFuture<List<BitmarkRecord>> issueBitmark(IssuanceParams params);
+
+    CompletableFuture<RegistrationResponse> registerAsset(
+            RegistrationParams params
+    );
+
+    CompletableFuture<String> transferBitmark(TransferParams params);
+
+    CompletableFuture<String> offerBitmark(TransferOfferParams params);
+
+    CompletableFuture<String> respondBitmarkOffer(
+            TransferResponseParams params
+    );
+
+    CompletableFuture<GetBitmarkResponse> getBitmark(
+            String bitmarkId,
+            boolean includeAsset
+    );
+
+    CompletableFuture<GetBitmarksResponse> listBitmarks(QueryParams params);
+
+    CompletableFuture<AssetRecord> getAsset(String assetId);
+
+    CompletableFuture<List<AssetRecord>> listAssets(QueryParams params);
+
+    CompletableFuture<GetTransactionResponse> getTransaction(
+            String txId,
+            boolean includeAsset
+    );
+
+    CompletableFuture<GetTransactionsResponse> listTransactions(
+            QueryParams params
+    );
+
+    CompletableFuture<Pair<String, String>> createShare(ShareParams params);
+
+    CompletableFuture<String> grantShare(ShareGrantingParams params);
+
+    CompletableFuture<String> respondShareOffer(GrantResponseParams params);
+
+    CompletableFuture<ShareRecord> getShare(String shareId);
+
+    CompletableFuture<List<ShareRecord>> listShares(String owner);
+
+    CompletableFuture<List<ShareGrantRecord>> listShareOffer(
+            String from,
+            String to
+    );
+
+    CompletableFuture<String> registerWsToken(RegisterWsTokenParams params);
+
+}
@@ -0,0 +1,294 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.GetBitmarkResponse;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import okhttp3.internal.Util;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Collect single bitmark lookups for a short window and serve them with one
+ * bitmark_ids query. Ids missing from the query result are looked up one by
+ * one.
+ */
+public class BitmarkBatchLoader {
+
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private final BatchFetcher batchFetcher;
+
+    private final SingleFetcher singleFetcher;
+
+    private final long window;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+
+    // Pending batch without and with asset
+    private final Batch[] pending = new Batch[2];
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder loadCount = new LongAdder();
+
+    public BitmarkBatchLoader(
+            BatchFetcher batchFetcher,
+            SingleFetcher singleFetcher,
+            long windowMillis,
+            int maxBatchSize
+    ) {
+        checkValid(
+                () -> batchFetcher != null && singleFetcher != null,
+                "Invalid fetcher"
+        );
+        checkValid(() -> windowMillis > 0, "Invalid batch window");
+        checkValid(
+                () -> maxBatchSize > 0 && maxBatchSize <= MAX_BATCH_SIZE,
+                "Invalid batch size"
+        );
+        this.batchFetcher = batchFetcher;
+        this.singleFetcher = singleFetcher;
+        this.window = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Util
+                .threadFactory("Bitmark Batch Loader", true));
+    }
+
+    public void load(
+            String bitmarkId,
+            boolean includeAsset,
+            Callback1<GetBitmarkResponse> callback
+    ) {
+        loadCount.increment();
+        int index = includeAsset ? 1 : 0;
+        Batch full = null;
+        synchronized (lock) {
+            Batch batch = pending[index];
+            if (batch == null) {
+                batch = new Batch(includeAsset);
+                pending[index] = batch;
+                final Batch scheduled = batch;
+                batch.flush = scheduler.schedule(
+                        () -> flush(scheduled),
+                        window,
+                        TimeUnit.MILLISECONDS
+                );
+            }
+            batch.add(bitmarkId, callback);
+            if (batch.size() >= maxBatchSize) {
+                pending[index] = null;
+                batch.flush.cancel(false);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+    }
+
+    /**
+     * @return number of bitmark_ids queries sent
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * @return number of lookups served by the loader
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private void flush(Batch batch) {
+        synchronized (lock) {
+            int index = batch.includeAsset ? 1 : 0;
+            if (pending[index] != batch) {
+                return;
+            }
+            pending[index] = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        batchCount.increment();
+        String[] ids = batch.callbacks.keySet().toArray(new String[0]);
+        QueryParams params = new BitmarkQueryBuilder().bitmarkIds(ids)
+                .loadAsset(batch.includeAsset)
+                .pending(true)
+                .limit(ids.length)
+                .build();
+        try {
+            batchFetcher.listBitmarks(params, new Callback1<GetBitmarksResponse>() {
+                @Override
+                public void onSuccess(GetBitmarksResponse data) {
+                    if (batch.complete()) {
+                        resolve(batch, data);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    if (batch.complete()) {
+                        fail(batch, throwable);
+                    }
+                }
+            });
+        } catch (Throwable e) {
+            // Also reached when a callback throws from a result delivered
+            // inline, the batch is completed then and no error is sent
+            if (batch.complete()) {
+                fail(batch, e);
+            }
+        }
+    }
+
+    private void fail(Batch batch, Throwable throwable) {
+        List<Runnable> deliveries = new ArrayList<>();
+        for (List<Callback1<GetBitmarkResponse>> callbacks : batch.callbacks
+                .values()) {
+            for (Callback1<GetBitmarkResponse> callback : callbacks) {
+                deliveries.add(() -> callback.onError(throwable));
+            }
+        }
+        deliver(deliveries);
+    }
+
+    private void resolve(Batch batch, GetBitmarksResponse response) {
+        Map<String, BitmarkRecord> bitmarks = new HashMap<>();
+        if (response.getBitmarks() != null) {
+            for (BitmarkRecord bitmark : response.getBitmarks()) {
+                bitmarks.put(bitmark.getId(), bitmark);
+            }
+        }
+        Map<String, AssetRecord> assets = new HashMap<>();
+        if (response.getAssets() != null) {
+            for (AssetRecord asset : response.getAssets()) {
+                assets.put(asset.getId(), asset);
+            }
+        }
+
+        List<Runnable> deliveries = new ArrayList<>();
+        for (Map.Entry<String, List<Callback1<GetBitmarkResponse>>> entry : batch.callbacks
+                .entrySet()) {
+            String bitmarkId = entry.getKey();
+            BitmarkRecord bitmark = bitmarks.get(bitmarkId);
+            if (bitmark == null) {
+                for (Callback1<GetBitmarkResponse> callback : entry.getValue()) {
+                    deliveries.add(() -> singleFetcher.getBitmark(
+                            bitmarkId,
+                            batch.includeAsset,
+                            callback
+                    ));
+                }
+                continue;
+            }
+            AssetRecord asset = batch.includeAsset
+                                ? assets.get(bitmark.getAssetId())
+                                : null;
+            GetBitmarkResponse result = new GetBitmarkResponse(bitmark, asset);
+            for (Callback1<GetBitmarkResponse> callback : entry.getValue()) {
+                deliveries.add(() -> callback.onSuccess(result));
+            }
+        }
+        deliver(deliveries);
+    }
+
+    // A throwing callback must not keep the result from the callers after
+    // it, the first exception is rethrown once all of them are called
+    private static void deliver(List<Runnable> deliveries) {
+        RuntimeException failure = null;
+        for (Runnable delivery : deliveries) {
+            try {
+                delivery.run();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public interface BatchFetcher {
+
+        void listBitmarks(
+                QueryParams params,
+                Callback1<GetBitmarksResponse> callback
+        );
+    }
+
+    public interface SingleFetcher {
+
+        void getBitmark(
+                String bitmarkId,
+                boolean includeAsset,
+                Callback1<GetBitmarkResponse> callback
+        );
+    }
+
+    private static final class Batch {
+
+        private final boolean includeAsset;
+
+        // Callers of the same id share one slot in the query
+        private final Map<String, List<Callback1<GetBitmarkResponse>>> callbacks =
+                new LinkedHashMap<>();
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private ScheduledFuture<?> flush;
+
+        private Batch(boolean includeAsset) {
+            this.includeAsset = includeAsset;
+        }
+
+        private void add(
+                String bitmarkId,
+                Callback1<GetBitmarkResponse> callback
+        ) {
+            callbacks.computeIfAbsent(bitmarkId, id -> new ArrayList<>())
+                    .add(callback);
+        }
+
+        private int size() {
+            return callbacks.size();
+        }
+
+        /**
+         * @return true for the first result or error of the batch only
+         */
+        private boolean complete() {
+            return completed.compareAndSet(false, true);
+        }
+    }
+}
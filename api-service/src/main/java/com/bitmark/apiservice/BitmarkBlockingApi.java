@@ -0,0 +1,91 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.params.*;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.*;
+import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.ShareGrantRecord;
+import com.bitmark.apiservice.utils.record.ShareRecord;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The blocking counterpart of {@link BitmarkApi}. A call parks the calling
+ * thread until the response arrives, without holding a lock or spinning, so
+ * it can be made from a large number of threads at once, including virtual
+ * threads.
+ *
+ * @see BlockingApiService
+ */
+public interface BitmarkBlockingApi {
+
+    List<BitmarkRecord> issueBitmark(IssuanceParams params)
+            throws IOException, InterruptedException;
+
+    RegistrationResponse registerAsset(RegistrationParams params)
+            throws IOException, InterruptedException;
+
+    String transferBitmark(TransferParams params)
+            throws IOException, InterruptedException;
+
+    String offerBitmark(TransferOfferParams params)
+            throws IOException, InterruptedException;
+
+    String respondBitmarkOffer(TransferResponseParams params)
+            throws IOException, InterruptedException;
+
+    GetBitmarkResponse getBitmark(
+            String bitmarkId,
+            boolean includeAsset
+    ) throws IOException, InterruptedException;
+
+    GetBitmarksResponse listBitmarks(QueryParams params)
+            throws IOException, InterruptedException;
+
+    AssetRecord getAsset(String assetId)
+            throws IOException, InterruptedException;
+
+    List<AssetRecord> listAssets(QueryParams params)
+            throws IOException, InterruptedException;
+
+    GetTransactionResponse getTransaction(
+            String txId,
+            boolean includeAsset
+    ) throws IOException, InterruptedException;
+
+    GetTransactionsResponse listTransactions(QueryParams params)
+            throws IOException, InterruptedException;
+
+    Pair<String, String> createShare(ShareParams params)
+            throws IOException, InterruptedException;
+
+    String grantShare(ShareGrantingParams params)
+            throws IOException, InterruptedException;
+
+    String respondShareOffer(GrantResponseParams params)
+            throws IOException, InterruptedException;
+
+    ShareRecord getShare(String shareId)
+            throws IOException, InterruptedException;
+
+    List<ShareRecord> listShares(String owner)
+            throws IOException, InterruptedException;
+
+    List<ShareGrantRecord> listShareOffer(
+            String from,
+            String to
+    ) throws IOException, InterruptedException;
+
+    String registerWsToken(RegisterWsTokenParams params)
+            throws IOException, InterruptedException;
+
+}
@@ -0,0 +1,211 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.params.*;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.*;
+import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.ShareGrantRecord;
+import com.bitmark.apiservice.utils.record.ShareRecord;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Implementation of {@link BitmarkBlockingApi} on top of
+ * {@link BitmarkAsyncApi}. The request runs on the network threads while the
+ * caller is parked on the future, so no lock is held and no carrier thread
+ * is pinned when the caller is a virtual thread.
+ */
+public class BlockingApiService implements BitmarkBlockingApi {
+
+    private final BitmarkAsyncApi api;
+
+    private final long timeoutNanos; // 0 for no timeout
+
+    private static volatile BlockingApiService INSTANCE;
+
+    public static BlockingApiService getInstance() {
+        if (INSTANCE == null) {
+            synchronized (BlockingApiService.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new BlockingApiService(
+                            AsyncApiService.getInstance());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public BlockingApiService(BitmarkAsyncApi api) {
+        this.api = api;
+        this.timeoutNanos = 0;
+    }
+
+    /**
+     * @param timeout maximum time a call waits for its response, on top of
+     *                the timeouts of the HTTP client
+     */
+    public BlockingApiService(BitmarkAsyncApi api, long timeout, TimeUnit unit) {
+        checkValid(() -> timeout > 0, "timeout must be positive");
+        this.api = api;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    public List<BitmarkRecord> issueBitmark(IssuanceParams params)
+            throws IOException, InterruptedException {
+        return await(api.issueBitmark(params));
+    }
+
+    @Override
+    public RegistrationResponse registerAsset(RegistrationParams params)
+            throws IOException, InterruptedException {
+        return await(api.registerAsset(params));
+    }
+
+    @Override
+    public String transferBitmark(TransferParams params)
+            throws IOException, InterruptedException {
+        return await(api.transferBitmark(params));
+    }
+
+    @Override
+    public String offerBitmark(TransferOfferParams params)
+            throws IOException, InterruptedException {
+        return await(api.offerBitmark(params));
+    }
+
+    @Override
+    public String respondBitmarkOffer(TransferResponseParams params)
+            throws IOException, InterruptedException {
+        return await(api.respondBitmarkOffer(params));
+    }
+
+    @Override
+    public GetBitmarkResponse getBitmark(
+            String bitmarkId,
+            boolean includeAsset
+    ) throws IOException, InterruptedException {
+        return await(api.getBitmark(bitmarkId, includeAsset));
+    }
+
+    @Override
+    public GetBitmarksResponse listBitmarks(QueryParams params)
+            throws IOException, InterruptedException {
+        return await(api.listBitmarks(params));
+    }
+
+    @Override
+    public AssetRecord getAsset(String assetId)
+            throws IOException, InterruptedException {
+        return await(api.getAsset(assetId));
+    }
+
+    @Override
+    public List<AssetRecord> listAssets(QueryParams params)
+            throws IOException, InterruptedException {
+        return await(api.listAssets(params));
+    }
+
+    @Override
+    public GetTransactionResponse getTransaction(
+            String txId,
+            boolean includeAsset
+    ) throws IOException, InterruptedException {
+        return await(api.getTransaction(txId, includeAsset));
+    }
+
+    @Override
+    public GetTransactionsResponse listTransactions(QueryParams params)
+            throws IOException, InterruptedException {
+        return await(api.listTransactions(params));
+    }
+
+    @Override
+    public Pair<String, String> createShare(ShareParams params)
+            throws IOException, InterruptedException {
+        return await(api.createShare(params));
+    }
+
+    @Override
+    public String grantShare(ShareGrantingParams params)
+            throws IOException, InterruptedException {
+        return await(api.grantShare(params));
+    }
+
+    @Override
+    public String respondShareOffer(GrantResponseParams params)
+            throws IOException, InterruptedException {
+        return await(api.respondShareOffer(params));
+    }
+
+    @Override
+    public ShareRecord getShare(String shareId)
+            throws IOException, InterruptedException {
+        return await(api.getShare(shareId));
+    }
+
+    @Override
+    public List<ShareRecord> listShares(String owner)
+            throws IOException, InterruptedException {
+        return await(api.listShares(owner));
+    }
+
+    @Override
+    public List<ShareGrantRecord> listShareOffer(
+            String from,
+            String to
+    ) throws IOException, InterruptedException {
+        return await(api.listShareOffer(from, to));
+    }
+
+    @Override
+    public String registerWsToken(RegisterWsTokenParams params)
+            throws IOException, InterruptedException {
+        return await(api.registerWsToken(params));
+    }
+
+    private <T> T await(CompletableFuture<T> future)
+            throws IOException, InterruptedException {
+        try {
+            return timeoutNanos > 0
+                   ? future.get(timeoutNanos, TimeUnit.NANOSECONDS)
+                   : future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UnexpectedException(cause);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new NetworkException(String.format(
+                    "Timeout after %d ms",
+                    TimeUnit.NANOSECONDS.toMillis(timeoutNanos)
+            ));
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        }
+    }
+}
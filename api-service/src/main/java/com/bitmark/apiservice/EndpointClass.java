@@ -0,0 +1,40 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import okhttp3.Request;
+
+import java.util.List;
+
+/**
+ * Groups of API calls with similar cost, used to limit concurrency
+ */
+public enum EndpointClass {
+
+    // Issuance and asset registration
+    ISSUE,
+
+    // Transfers and other writes
+    TRANSFER,
+
+    // Queries of a collection
+    LIST,
+
+    // Lookups of a single record
+    GET;
+
+    public static EndpointClass of(Request request) {
+        List<String> segments = request.url().pathSegments();
+        String resource = segments.size() > 1 ? segments.get(1) : "";
+        if ("GET".equals(request.method()) || "HEAD".equals(request.method())) {
+            return segments.size() > 2 ? GET : LIST;
+        }
+        return "issue".equals(resource) || "register-asset".equals(resource)
+               ? ISSUE
+               : TRANSFER;
+    }
+}
@@ -8,8 +8,10 @@ package com.bitmark.apiservice;
 
 import okhttp3.Headers;
 import okhttp3.Response;
+import com.bitmark.apiservice.middleware.CompressionStats;
 import com.bitmark.apiservice.params.Params;
 import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.utils.AdaptiveLimiter;
 import com.bitmark.apiservice.utils.callback.Callback1;
 
 public interface HttpClient {
@@ -43,4 +45,22 @@ public interface HttpClient {
     void deleteAsync(String path, Callback1<Response> callback);
 
     void deleteAsync(String path, Params params, Callback1<Response> callback);
+
+    /**
+     * @return number of requests waiting for a free slot in the dispatcher
+     */
+    int getQueuedRequestCount();
+
+    /**
+     * @return number of requests being executed
+     */
+    int getInFlightRequestCount();
+
+    CompressionStats getCompressionStats();
+
+    /**
+     * @return the limiter of the endpoint class, or null if the concurrency
+     * is not limited
+     */
+    AdaptiveLimiter getConcurrencyLimiter(EndpointClass endpointClass);
 }
@@ -6,42 +6,178 @@
  */
 package com.bitmark.apiservice;
 
+import com.bitmark.apiservice.configuration.CacheConfiguration;
+import com.bitmark.apiservice.configuration.CircuitBreakerPolicy;
+import com.bitmark.apiservice.configuration.ConcurrencyLimitPolicy;
 import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.RateLimitPolicy;
+import com.bitmark.apiservice.configuration.RejectionPolicy;
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.apiservice.metrics.EndpointMetrics;
+import com.bitmark.apiservice.metrics.MetricsRegistry;
 import com.bitmark.apiservice.middleware.BitmarkApiInterceptor;
+import com.bitmark.apiservice.middleware.CacheInterceptor;
+import com.bitmark.apiservice.middleware.CompressionInterceptor;
+import com.bitmark.apiservice.middleware.CompressionStats;
+import com.bitmark.apiservice.middleware.ConditionalRequestInterceptor;
 import com.bitmark.apiservice.params.Params;
 import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.tracing.Phase;
+import com.bitmark.apiservice.tracing.Span;
+import com.bitmark.apiservice.tracing.Tracing;
+import com.bitmark.apiservice.utils.AdaptiveLimiter;
+import com.bitmark.apiservice.utils.CircuitBreaker;
+import com.bitmark.apiservice.utils.TokenBucket;
 import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.error.CircuitOpenException;
 import com.bitmark.apiservice.utils.error.HttpException;
 import com.bitmark.apiservice.utils.error.NetworkException;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
 import okhttp3.*;
 import okhttp3.internal.Util;
 import okhttp3.logging.HttpLoggingInterceptor;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
 
-class HttpClientImpl implements HttpClient {
+import static com.bitmark.apiservice.utils.HttpUtils.getEndpointName;
 
-    private static final MediaType JSON = MediaType.parse(
-            "application/json; charset=utf-8");
+class HttpClientImpl implements HttpClient {
 
     private OkHttpClient client;
 
     private String endpoint;
 
+    private final CompressionStats compressionStats = new CompressionStats();
+
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    // Permits for requests that are running or waiting in the dispatcher.
+    // It's null if the request queue is unbounded
+    private Semaphore admission;
+
+    private RejectionPolicy rejectionPolicy;
+
+    // Null if requests are not retried
+    private RetryPolicy retryPolicy;
+
+    // Null if there is no rate limit
+    private RateLimitPolicy rateLimitPolicy;
+
+    // Null if reads or writes are not rate limited
+    private TokenBucket readBucket;
+
+    private TokenBucket writeBucket;
+
+    // Sends requests that wait for a retry or a rate limit token
+    private ScheduledExecutorService scheduler;
+
+    // Null if there is no circuit breaker
+    private CircuitBreakerPolicy circuitBreakerPolicy;
+
+    private final Map<String, CircuitBreaker> circuitBreakers =
+            new ConcurrentHashMap<>();
+
+    // Null if the concurrency is not limited
+    private Map<EndpointClass, AdaptiveLimiter> concurrencyLimiters;
+
+    // Null if the responses are decoded on the network threads
+    private Executor decodeExecutor;
+
     HttpClientImpl(String endpoint, String apiToken) {
+        this(endpoint, apiToken, GlobalConfiguration.decodeExecutor());
+    }
+
+    HttpClientImpl(String endpoint, String apiToken, Executor decodeExecutor) {
         this.endpoint = endpoint;
         client = buildClient(apiToken);
+        long capacity = (long) GlobalConfiguration.maxRequests() + GlobalConfiguration
+                .maxQueuedRequests();
+        if (capacity < Integer.MAX_VALUE) {
+            admission = new Semaphore((int) capacity, true);
+        }
+        rejectionPolicy = GlobalConfiguration.rejectionPolicy();
+        retryPolicy = GlobalConfiguration.retryPolicy();
+        rateLimitPolicy = GlobalConfiguration.rateLimitPolicy();
+        if (rateLimitPolicy != null) {
+            long now = System.nanoTime();
+            if (rateLimitPolicy.getReadsPerSecond() > 0) {
+                readBucket = new TokenBucket(
+                        rateLimitPolicy.getReadsPerSecond(),
+                        rateLimitPolicy.getReadBurst(),
+                        now
+                );
+            }
+            if (rateLimitPolicy.getWritesPerSecond() > 0) {
+                writeBucket = new TokenBucket(
+                        rateLimitPolicy.getWritesPerSecond(),
+                        rateLimitPolicy.getWriteBurst(),
+                        now
+                );
+            }
+        }
+        if (retryPolicy != null || rateLimitPolicy != null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(Util
+                    .threadFactory("Bitmark Request Scheduler", true));
+        }
+        circuitBreakerPolicy = GlobalConfiguration.circuitBreakerPolicy();
+        this.decodeExecutor = decodeExecutor;
+        ConcurrencyLimitPolicy concurrencyLimitPolicy = GlobalConfiguration
+                .concurrencyLimitPolicy();
+        if (concurrencyLimitPolicy != null) {
+            int maxLimit = concurrencyLimitPolicy.getMaxLimit() == 0
+                           ? GlobalConfiguration.maxRequests()
+                           : concurrencyLimitPolicy.getMaxLimit();
+            concurrencyLimiters = new EnumMap<>(EndpointClass.class);
+            for (EndpointClass endpointClass : EndpointClass.values()) {
+                AdaptiveLimiter limiter = new AdaptiveLimiter(
+                        concurrencyLimitPolicy,
+                        maxLimit
+                );
+                concurrencyLimiters.put(endpointClass, limiter);
+                metrics.gauge(
+                        "concurrency." + endpointClass.name().toLowerCase() + ".limit",
+                        limiter::getLimit
+                );
+            }
+        }
+        metrics.gauge("http.queued", this::getQueuedRequestCount);
+        metrics.gauge("http.running", this::getInFlightRequestCount);
+        metrics.gauge("compression.bytesSaved", compressionStats::getBytesSaved);
     }
 
     private OkHttpClient buildClient(String apiToken) {
         OkHttpClient.Builder builder = new OkHttpClient.Builder();
 
-        // Add Request Interceptor
-        builder.addInterceptor(new BitmarkApiInterceptor(apiToken));
+        // Add Response Cache, cache hits never reach the network
+        CacheConfiguration cacheConfiguration = GlobalConfiguration
+                .cacheConfiguration();
+        if (cacheConfiguration != null) {
+            builder.addInterceptor(new CacheInterceptor(cacheConfiguration));
+        }
+
+        // Add Request Interceptor, the requests only opt out of caching
+        // when they are not made conditional
+        int conditionalRequestCapacity = GlobalConfiguration
+                .conditionalRequestCapacity();
+        builder.addInterceptor(new BitmarkApiInterceptor(
+                apiToken,
+                conditionalRequestCapacity > 0
+        ));
+
+        // Add Conditional Requests, so that re-polling an unchanged list
+        // does not transfer it again
+        if (conditionalRequestCapacity > 0) {
+            builder.addInterceptor(new ConditionalRequestInterceptor(
+                    conditionalRequestCapacity));
+        }
 
         // Add Logging
         if (GlobalConfiguration.logLevel() != null) {
@@ -49,17 +185,85 @@ class HttpClientImpl implements HttpClient {
                     new HttpLoggingInterceptor().setLevel(GlobalConfiguration.logLevel()));
         }
 
+        // Add Compression, after logging so that plain bodies are logged.
+        // Responses are decompressed by OkHttp as long as no
+        // Accept-Encoding header is set by hand
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(
+                GlobalConfiguration.requestCompressionThreshold(),
+                compressionStats
+        );
+        builder.addInterceptor(compressionInterceptor);
+        builder.addNetworkInterceptor(compressionInterceptor.networkInterceptor());
+
         // Configure the timeout
         int timeout = GlobalConfiguration.connectionTimeout();
         builder.readTimeout(timeout, TimeUnit.SECONDS);
         builder.connectTimeout(timeout, TimeUnit.SECONDS);
+
+        configureConnections(
+                builder,
+                GlobalConfiguration.maxRequests(),
+                GlobalConfiguration.maxRequestsPerHost(),
+                GlobalConfiguration.maxIdleConnections(),
+                GlobalConfiguration.keepAliveDuration()
+        );
+        return builder.build();
+    }
+
+    static void configureConnections(
+            OkHttpClient.Builder builder,
+            int maxRequests,
+            int maxRequestsPerHost,
+            int maxIdleConnections,
+            int keepAliveDuration
+    ) {
+        // The dispatcher never runs more than maxRequests calls at once, so
+        // the executor is sized to match and never has to queue or reject
         final ExecutorService executorService =
-                new ThreadPoolExecutor(0, 10, 60,
+                new ThreadPoolExecutor(0, maxRequests, 60,
                         TimeUnit.SECONDS, new SynchronousQueue<>(), Util
                         .threadFactory("OkHttp Dispatcher", false)
                 );
-        builder.dispatcher(new Dispatcher(executorService));
-        return builder.build();
+        final Dispatcher dispatcher = new Dispatcher(executorService);
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(Math.min(
+                maxRequests,
+                maxRequestsPerHost
+        ));
+        builder.dispatcher(dispatcher);
+
+        // Configure the connection pool
+        builder.connectionPool(new ConnectionPool(
+                maxIdleConnections,
+                keepAliveDuration,
+                TimeUnit.SECONDS
+        ));
+    }
+
+    @Override
+    public int getQueuedRequestCount() {
+        return client.dispatcher().queuedCallsCount();
+    }
+
+    @Override
+    public int getInFlightRequestCount() {
+        return client.dispatcher().runningCallsCount();
+    }
+
+    @Override
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
+    }
+
+    @Override
+    public AdaptiveLimiter getConcurrencyLimiter(EndpointClass endpointClass) {
+        return concurrencyLimiters == null
+               ? null
+               : concurrencyLimiters.get(endpointClass);
+    }
+
+    OkHttpClient getClient() {
+        return client;
     }
 
     private String getRequestUrl(String path) {
@@ -85,7 +289,7 @@ class HttpClientImpl implements HttpClient {
                             ? getRequestUrl(path)
                             : getRequestUrl(path, params);
         Request request = new Request.Builder().url(requestUrl).get().build();
-        client.newCall(request).enqueue(wrapCallback(callback));
+        enqueue(request, callback);
     }
 
     @Override
@@ -105,11 +309,11 @@ class HttpClientImpl implements HttpClient {
         String requestUrl = getRequestUrl(path);
         Request.Builder builder = new Request.Builder()
                 .url(requestUrl)
-                .post(RequestBody.create(JSON, params.toJson()));
+                .post(toRequestBody(path, params));
         if (headers != null) {
             builder.headers(headers);
         }
-        client.newCall(builder.build()).enqueue(wrapCallback(callback));
+        enqueue(builder.build(), callback);
     }
 
     @Override
@@ -128,14 +332,14 @@ class HttpClientImpl implements HttpClient {
     ) {
         String requestUrl = getRequestUrl(path);
         Request.Builder builder =
-                new Request.Builder().url(requestUrl).patch(RequestBody.create(
-                        JSON,
-                        params.toJson()
+                new Request.Builder().url(requestUrl).patch(toRequestBody(
+                        path,
+                        params
                 ));
         if (headers != null) {
             builder.headers(headers);
         }
-        client.newCall(builder.build()).enqueue(wrapCallback(callback));
+        enqueue(builder.build(), callback);
     }
 
     @Override
@@ -153,33 +357,403 @@ class HttpClientImpl implements HttpClient {
         Request.Builder builder = new Request.Builder()
                 .url(requestUrl);
         Request request = params == null ? builder.delete().build() :
-                          builder.delete(RequestBody.create(
-                                  JSON,
-                                  params.toJson()
-                          )).build();
-        client.newCall(request).enqueue(wrapCallback(callback));
+                          builder.delete(toRequestBody(path, params)).build();
+        enqueue(request, callback);
+    }
+
+    private static RequestBody toRequestBody(String path, Params params) {
+        RequestBody body = ParamsRequestBody.create(path, params);
+        try {
+            // Fails here for params that are not signed, instead of on the
+            // dispatcher thread
+            body.contentLength();
+        } catch (IOException e) {
+            throw new UnexpectedException(e);
+        }
+        return body;
+    }
+
+    private void enqueue(Request request, Callback1<Response> callback) {
+        Span queued = beginSpan(Phase.ENQUEUE, request);
+        if (admission != null) {
+            if (rejectionPolicy == RejectionPolicy.BLOCK) {
+                try {
+                    admission.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    queued.end(-1);
+                    callback.onError(e);
+                    return;
+                }
+            } else if (!admission.tryAcquire()) {
+                queued.end(-1);
+                callback.onError(new RejectedExecutionException(
+                        "Request queue is full"));
+                return;
+            }
+        }
+
+        long wait = reserveToken(request, false);
+        if (wait < 0) {
+            release();
+            queued.end(-1);
+            callback.onError(new RejectedExecutionException(
+                    "Rate limit wait exceeds the max wait"));
+            return;
+        }
+        schedule(() -> start(request, queued, callback), wait);
+    }
+
+    private void start(
+            Request request,
+            Span queued,
+            Callback1<Response> callback
+    ) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(request);
+        if (tryAcquire(request, circuitBreaker, queued, callback)) {
+            execute(request, circuitBreaker, 0, queued, callback);
+        }
+    }
+
+    /**
+     * Take a permit of the circuit breaker for an attempt, so that a retry
+     * is also limited to the single probe of a half open circuit
+     *
+     * @return false if the circuit is open, the callback got the error
+     */
+    private boolean tryAcquire(
+            Request request,
+            CircuitBreaker circuitBreaker,
+            Span queued,
+            Callback1<Response> callback
+    ) {
+        if (circuitBreaker == null || circuitBreaker.tryAcquire(System
+                .currentTimeMillis())) {
+            return true;
+        }
+        release();
+        queued.end(-1);
+        callback.onError(new CircuitOpenException(getEndpoint(request)));
+        return false;
+    }
+
+    private void execute(
+            Request request,
+            CircuitBreaker circuitBreaker,
+            int retry,
+            Span queued,
+            Callback1<Response> callback
+    ) {
+        AdaptiveLimiter limiter = concurrencyLimiters == null
+                                  ? null
+                                  : concurrencyLimiters.get(EndpointClass.of(
+                                          request));
+        EndpointMetrics endpointMetrics = metrics.endpoint(getEndpointName(
+                request));
+        Runnable send = () -> {
+            long contentLength = getContentLength(request);
+            queued.end(contentLength);
+            endpointMetrics.onSend(contentLength);
+            client.newCall(request).enqueue(wrapCallback(
+                    request,
+                    circuitBreaker,
+                    limiter,
+                    endpointMetrics,
+                    beginSpan(Phase.NETWORK, request),
+                    System.nanoTime(),
+                    retry,
+                    callback
+            ));
+        };
+        if (limiter == null) {
+            send.run();
+        } else if (!limiter.acquire(send)) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onCancel();
+            }
+            release();
+            queued.end(-1);
+            callback.onError(new RejectedExecutionException(
+                    "Concurrency limit queue is full"));
+        }
+    }
+
+    private void release() {
+        if (admission != null) {
+            admission.release();
+        }
+    }
+
+    /**
+     * @return nanoseconds to wait for a rate limit token, or -1 if the wait
+     * is longer than the max wait. Retries always wait for their token.
+     */
+    private long reserveToken(Request request, boolean retry) {
+        if (rateLimitPolicy == null) {
+            return 0;
+        }
+        TokenBucket bucket = "GET".equals(request.method()) || "HEAD".equals(
+                request.method()) ? readBucket : writeBucket;
+        if (bucket == null) {
+            return 0;
+        }
+        long maxWait = retry || rateLimitPolicy.getMaxWait() == RateLimitPolicy.UNBOUNDED
+                       ? -1
+                       : TimeUnit.MILLISECONDS.toNanos(rateLimitPolicy.getMaxWait());
+        return bucket.reserve(System.nanoTime(), maxWait);
+    }
+
+    private void schedule(Runnable runnable, long delayNanos) {
+        if (delayNanos > 0) {
+            scheduler.schedule(runnable, delayNanos, TimeUnit.NANOSECONDS);
+        } else {
+            runnable.run();
+        }
+    }
+
+    private CircuitBreaker getCircuitBreaker(Request request) {
+        if (circuitBreakerPolicy == null) {
+            return null;
+        }
+        return circuitBreakers.computeIfAbsent(
+                getEndpoint(request),
+                endpoint -> new CircuitBreaker(circuitBreakerPolicy)
+        );
+    }
+
+    // The version and the resource, e.g /v3/bitmarks
+    private static String getEndpoint(Request request) {
+        List<String> segments = request.url().pathSegments();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Math.min(2, segments.size()); i++) {
+            builder.append('/').append(segments.get(i));
+        }
+        return builder.toString();
+    }
+
+    private static Span beginSpan(Phase phase, Request request) {
+        return Tracing.isEnabled()
+               ? Tracing.begin(phase, getEndpointName(request))
+               : Span.NOOP;
     }
 
-    private Callback wrapCallback(Callback1<Response> callback) {
+    private static long getContentLength(Request request) {
+        RequestBody body = request.body();
+        try {
+            return body == null ? 0 : body.contentLength();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return milliseconds to wait before the request is sent again, or -1
+     * if it must not be retried
+     */
+    private long getRetryDelay(
+            Request request,
+            CircuitBreaker circuitBreaker,
+            int retry,
+            String retryAfter
+    ) {
+        if (retryPolicy == null || retry >= retryPolicy.getMaxRetries()
+                || !retryPolicy.isRetryable(request)) {
+            return -1;
+        }
+        if (circuitBreaker != null
+                && circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            return -1;
+        }
+        return retryPolicy.getDelay(retry, retryAfter);
+    }
+
+    private void retry(
+            Request request,
+            CircuitBreaker circuitBreaker,
+            EndpointMetrics endpointMetrics,
+            int retry,
+            long delay,
+            Callback1<Response> callback
+    ) {
+        endpointMetrics.onRetry();
+        long wait = Math.max(
+                TimeUnit.MILLISECONDS.toNanos(delay),
+                reserveToken(request, true)
+        );
+        scheduler.schedule(
+                () -> {
+                    if (tryAcquire(
+                            request,
+                            circuitBreaker,
+                            Span.NOOP,
+                            callback
+                    )) {
+                        execute(
+                                request,
+                                circuitBreaker,
+                                retry + 1,
+                                Span.NOOP,
+                                callback
+                        );
+                    }
+                },
+                wait,
+                TimeUnit.NANOSECONDS
+        );
+    }
+
+    private Callback wrapCallback(
+            Request request,
+            CircuitBreaker circuitBreaker,
+            AdaptiveLimiter limiter,
+            EndpointMetrics endpointMetrics,
+            Span network,
+            long sentAt,
+            int retry,
+            Callback1<Response> callback
+    ) {
         return new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
-                callback.onError(new NetworkException(e.getMessage()));
+                long latency = System.nanoTime() - sentAt;
+                network.end(-1);
+                endpointMetrics.onNetworkError(latency);
+                if (limiter != null) {
+                    limiter.release(latency, true);
+                }
+                if (circuitBreaker != null) {
+                    circuitBreaker.onFailure(System.currentTimeMillis());
+                }
+                long delay = getRetryDelay(request, circuitBreaker, retry, null);
+                if (delay >= 0) {
+                    retry(
+                            request,
+                            circuitBreaker,
+                            endpointMetrics,
+                            retry,
+                            delay,
+                            callback
+                    );
+                    return;
+                }
+                release();
+                Span span = beginSpan(Phase.CALLBACK, request);
+                try {
+                    callback.onError(new NetworkException(e.getMessage()));
+                } finally {
+                    span.end(-1);
+                }
             }
 
             @Override
-            public void onResponse(Call call, Response response)
+            public void onResponse(Call call, Response received)
                     throws IOException {
-                if (response.isSuccessful()) {
-                    callback.onSuccess(response);
+                int code = received.code();
+                long latency = System.nanoTime() - sentAt;
+                long contentLength = received.body().contentLength();
+                network.end(contentLength);
+                endpointMetrics.onResponse(latency, contentLength);
+                // A chunked or decompressed body is counted as it is read
+                Response response = contentLength < 0
+                                    ? countReceived(received, endpointMetrics)
+                                    : received;
+                boolean transientError = retryPolicy != null
+                                         ? retryPolicy.isRetryableStatus(code)
+                                         : code == 429 || code >= 500;
+                if (limiter != null) {
+                    limiter.release(latency, code == 429 || code >= 500);
+                }
+                if (circuitBreaker != null) {
+                    if (transientError) {
+                        circuitBreaker.onFailure(System.currentTimeMillis());
+                    } else {
+                        circuitBreaker.onSuccess();
+                    }
+                }
+                if (transientError) {
+                    long delay = getRetryDelay(
+                            request,
+                            circuitBreaker,
+                            retry,
+                            response.header("Retry-After")
+                    );
+                    if (delay >= 0) {
+                        response.close();
+                        retry(
+                                request,
+                                circuitBreaker,
+                                endpointMetrics,
+                                retry,
+                                delay,
+                                callback
+                        );
+                        return;
+                    }
+                }
+
+                release();
+                if (!response.isSuccessful()) {
+                    endpointMetrics.onError(code);
+                    String body = response.body().string();
+                    Span span = beginSpan(Phase.CALLBACK, request);
+                    try {
+                        callback.onError(new HttpException(code, body));
+                    } finally {
+                        span.end(contentLength);
+                    }
+                } else if (decodeExecutor == null) {
+                    complete(request, response, contentLength, callback);
                 } else {
-                    callback.onError(new HttpException(
-                            response.code(),
-                            response.body().string()
-                    ));
+                    try {
+                        decodeExecutor.execute(() -> complete(
+                                request,
+                                response,
+                                contentLength,
+                                callback
+                        ));
+                    } catch (RejectedExecutionException e) {
+                        response.close();
+                        callback.onError(e);
+                    }
                 }
             }
         };
     }
 
+    private static Response countReceived(
+            Response response,
+            EndpointMetrics endpointMetrics
+    ) {
+        ResponseBody body = response.body();
+        Source source = new ForwardingSource(body.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                endpointMetrics.onReceived(read);
+                return read;
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(
+                        body.contentType(),
+                        body.contentLength(),
+                        Okio.buffer(source)
+                ))
+                .build();
+    }
+
+    private static void complete(
+            Request request,
+            Response response,
+            long contentLength,
+            Callback1<Response> callback
+    ) {
+        Span span = beginSpan(Phase.CALLBACK, request);
+        try {
+            callback.onSuccess(response);
+        } finally {
+            span.end(contentLength);
+        }
+    }
+
 }
@@ -0,0 +1,111 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.params.Params;
+import com.bitmark.apiservice.tracing.Phase;
+import com.bitmark.apiservice.tracing.Span;
+import com.bitmark.apiservice.tracing.Tracing;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request body that serializes the params straight into the request
+ * stream, so that a large body is never held as a String. The length is
+ * counted by a first pass that discards the output, and the body can be
+ * written again for a retry. Params that do not write their own JSON are
+ * serialized once into a plain body instead, the two passes would only
+ * double the work for them.
+ */
+class ParamsRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.parse(
+            "application/json; charset=utf-8");
+
+    private static final ClassValue<Boolean> STREAMED = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("writeJson", BufferedSink.class)
+                           .getDeclaringClass() != Params.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    private final String path;
+
+    private final Params params;
+
+    private long contentLength = -1;
+
+    private ParamsRequestBody(String path, Params params) {
+        this.path = path;
+        this.params = params;
+    }
+
+    static RequestBody create(String path, Params params) {
+        if (STREAMED.get(params.getClass())) {
+            return new ParamsRequestBody(path, params);
+        }
+        Span span = Tracing.begin(Phase.SERIALIZE, path);
+        byte[] json = null;
+        try {
+            json = params.toJson().getBytes(StandardCharsets.UTF_8);
+        } finally {
+            span.end(json == null ? -1 : json.length);
+        }
+        return RequestBody.create(JSON, json);
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        if (contentLength < 0) {
+            CountingSink counter = new CountingSink();
+            try (BufferedSink sink = Okio.buffer(counter)) {
+                params.writeJson(sink);
+            }
+            contentLength = counter.count;
+        }
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        Span span = Tracing.begin(Phase.SERIALIZE, path);
+        try {
+            params.writeJson(sink);
+        } finally {
+            span.end(contentLength);
+        }
+    }
+
+    private static final class CountingSink extends ForwardingSink {
+
+        private long count;
+
+        private CountingSink() {
+            super(Okio.blackhole());
+        }
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            count += byteCount;
+            super.write(source, byteCount);
+        }
+    }
+}
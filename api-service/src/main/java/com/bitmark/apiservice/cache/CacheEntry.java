@@ -0,0 +1,113 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class CacheEntry {
+
+    private static final int VERSION = 1;
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final int code;
+
+    private final String contentType;
+
+    private final byte[] body;
+
+    private final long expiresAt;
+
+    private final long staleUntil;
+
+    public static CacheEntry immutable(
+            int code,
+            String contentType,
+            byte[] body
+    ) {
+        return new CacheEntry(code, contentType, body, NEVER, NEVER);
+    }
+
+    public CacheEntry(
+            int code,
+            String contentType,
+            byte[] body,
+            long expiresAt,
+            long staleUntil
+    ) {
+        this.code = code;
+        this.contentType = contentType;
+        this.body = body;
+        this.expiresAt = expiresAt;
+        this.staleUntil = Math.max(expiresAt, staleUntil);
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public boolean isImmutable() {
+        return expiresAt == NEVER;
+    }
+
+    public boolean isFresh(long now) {
+        return now < expiresAt;
+    }
+
+    public boolean isUsable(long now) {
+        return now < staleUntil;
+    }
+
+    int size() {
+        return body.length;
+    }
+
+    void writeTo(String key, DataOutputStream out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeUTF(key);
+        out.writeInt(code);
+        out.writeUTF(contentType == null ? "" : contentType);
+        out.writeLong(expiresAt);
+        out.writeLong(staleUntil);
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    /**
+     * @return the entry or null if it was written for another key or by an
+     * incompatible version
+     */
+    static CacheEntry readFrom(String key, DataInputStream in)
+            throws IOException {
+        if (in.readInt() != VERSION || !key.equals(in.readUTF())) {
+            return null;
+        }
+        int code = in.readInt();
+        String contentType = in.readUTF();
+        long expiresAt = in.readLong();
+        long staleUntil = in.readLong();
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new CacheEntry(
+                code,
+                contentType.isEmpty() ? null : contentType,
+                body,
+                expiresAt,
+                staleUntil
+        );
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+import com.bitmark.cryptography.crypto.Sha3256;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+
+/**
+ * Size capped directory of cache entries, one file per entry. Only the
+ * in-memory index is guarded by the lock, file I/O happens outside of it.
+ */
+class DiskCache {
+
+    private static final String SUFFIX = ".entry";
+
+    private final File directory;
+
+    private final long maxSize;
+
+    // File name to file size, least recently used first
+    private final LinkedHashMap<String, Long> index =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    DiskCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException(
+                    "Cannot create cache directory " + directory);
+        }
+        load();
+    }
+
+    CacheEntry get(String key) {
+        String name = fileName(key);
+        synchronized (index) {
+            if (index.get(name) == null) {
+                return null;
+            }
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(new File(
+                        directory,
+                        name
+                ))))) {
+            return CacheEntry.readFrom(key, in);
+        } catch (IOException e) {
+            remove(name);
+            return null;
+        }
+    }
+
+    void put(String key, CacheEntry entry) {
+        String name = fileName(key);
+        File file = new File(directory, name);
+        File temp = null;
+        try {
+            temp = File.createTempFile(name, ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                entry.writeTo(key, out);
+            }
+            Files.move(
+                    temp.toPath(),
+                    file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (IOException e) {
+            if (temp != null) {
+                temp.delete();
+            }
+            return;
+        }
+
+        List<String> victims = new ArrayList<>();
+        synchronized (index) {
+            Long previous = index.put(name, file.length());
+            size += file.length() - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> iterator =
+                    index.entrySet().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                size -= eldest.getValue();
+                victims.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+        for (String victim : victims) {
+            new File(directory, victim).delete();
+        }
+    }
+
+    long size() {
+        synchronized (index) {
+            return size;
+        }
+    }
+
+    private void remove(String name) {
+        synchronized (index) {
+            Long length = index.remove(name);
+            if (length != null) {
+                size -= length;
+            }
+        }
+        new File(directory, name).delete();
+    }
+
+    private void load() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (file.getName().endsWith(SUFFIX)) {
+                index.put(file.getName(), file.length());
+                size += file.length();
+            } else if (file.getName().endsWith(".tmp")) {
+                file.delete();
+            }
+        }
+    }
+
+    private static String fileName(String key) {
+        return HEX.encode(Sha3256.hash(key.getBytes(StandardCharsets.UTF_8))) + SUFFIX;
+    }
+}
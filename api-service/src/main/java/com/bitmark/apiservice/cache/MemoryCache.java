@@ -0,0 +1,43 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class MemoryCache {
+
+    private final Map<String, CacheEntry> entries;
+
+    MemoryCache(int capacity) {
+        // Access order makes the eldest entry the least recently used one
+        entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, CacheEntry> eldest
+            ) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized CacheEntry get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, CacheEntry entry) {
+        entries.put(key, entry);
+    }
+
+    synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+import com.bitmark.apiservice.configuration.CacheConfiguration;
+
+/**
+ * Two tier response cache. Every entry is kept in the memory tier, only
+ * immutable entries are written through to the disk tier.
+ */
+public class ResponseCache {
+
+    private final MemoryCache memory;
+
+    private final DiskCache disk;
+
+    public ResponseCache(CacheConfiguration configuration) {
+        memory = new MemoryCache(configuration.getMemoryCapacity());
+        disk = configuration.getDirectory() == null ? null : new DiskCache(
+                configuration.getDirectory(),
+                configuration.getMaxDiskSize()
+        );
+    }
+
+    public CacheEntry get(String key) {
+        CacheEntry entry = memory.get(key);
+        if (entry == null && disk != null) {
+            entry = disk.get(key);
+            if (entry != null) {
+                memory.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    public void put(String key, CacheEntry entry) {
+        memory.put(key, entry);
+        if (disk != null && entry.isImmutable()) {
+            disk.put(key, entry);
+        }
+    }
+
+    public void remove(String key) {
+        memory.remove(key);
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+import java.io.File;
+
+/**
+ * Configuration of the response cache for asset and transaction lookups.
+ * Registered assets and confirmed transactions never change so they are
+ * kept until they are evicted. Other responses are only kept if
+ * {@link Builder#withMaxAge(int)} or
+ * {@link Builder#withStaleWhileRevalidate(int)} is set.
+ */
+public class CacheConfiguration {
+
+    private final int memoryCapacity;
+
+    private final File directory;
+
+    private final long maxDiskSize;
+
+    private final int maxAge;
+
+    private final int staleWhileRevalidate;
+
+    private final int notFoundTtl;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private CacheConfiguration(Builder builder) {
+        this.memoryCapacity = builder.memoryCapacity;
+        this.directory = builder.directory;
+        this.maxDiskSize = builder.maxDiskSize;
+        this.maxAge = builder.maxAge;
+        this.staleWhileRevalidate = builder.staleWhileRevalidate;
+        this.notFoundTtl = builder.notFoundTtl;
+    }
+
+    public int getMemoryCapacity() {
+        return memoryCapacity;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxDiskSize() {
+        return maxDiskSize;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public int getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public int getNotFoundTtl() {
+        return notFoundTtl;
+    }
+
+    public static final class Builder {
+
+        private int memoryCapacity = 1000;
+
+        private File directory;
+
+        private long maxDiskSize = 50 * 1024 * 1024; // 50 MB
+
+        private int maxAge;
+
+        private int staleWhileRevalidate;
+
+        private int notFoundTtl;
+
+        Builder() {
+        }
+
+        /**
+         * @param memoryCapacity maximum number of responses kept in memory
+         * @return this builder
+         */
+        public Builder withMemoryCapacity(int memoryCapacity) {
+            this.memoryCapacity = memoryCapacity;
+            return this;
+        }
+
+        /**
+         * Keep immutable responses on disk so they survive a restart. The
+         * disk tier is disabled if no directory is set.
+         *
+         * @param directory   directory owned by the cache
+         * @param maxDiskSize maximum size of the directory in bytes
+         * @return this builder
+         */
+        public Builder withDiskCache(File directory, long maxDiskSize) {
+            this.directory = directory;
+            this.maxDiskSize = maxDiskSize;
+            return this;
+        }
+
+        /**
+         * @param maxAge seconds a mutable response, e.g a pending
+         *               transaction, is served without going to the network
+         * @return this builder
+         */
+        public Builder withMaxAge(int maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * @param staleWhileRevalidate seconds an expired mutable response is
+         *                             still served while it is refreshed in
+         *                             the background
+         * @return this builder
+         */
+        public Builder withStaleWhileRevalidate(int staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            return this;
+        }
+
+        /**
+         * @param notFoundTtl seconds a 404 response is remembered
+         * @return this builder
+         */
+        public Builder withNotFoundTtl(int notFoundTtl) {
+            this.notFoundTtl = notFoundTtl;
+            return this;
+        }
+
+        public CacheConfiguration build() {
+            if (memoryCapacity <= 0) {
+                throw new IllegalArgumentException(
+                        "Memory capacity must be greater than zero");
+            }
+            if (directory != null && maxDiskSize <= 0) {
+                throw new IllegalArgumentException(
+                        "Max disk size must be greater than zero");
+            }
+            if (maxAge < 0 || staleWhileRevalidate < 0 || notFoundTtl < 0) {
+                throw new IllegalArgumentException("Invalid cache lifetime");
+            }
+            return new CacheConfiguration(this);
+        }
+    }
+}
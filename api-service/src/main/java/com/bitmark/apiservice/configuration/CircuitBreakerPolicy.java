@@ -0,0 +1,68 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+/**
+ * Open the circuit of an endpoint after a number of consecutive failures.
+ * Requests to an open endpoint fail immediately until the open duration
+ * has passed, then a single trial request decides whether it closes again.
+ */
+public class CircuitBreakerPolicy {
+
+    private final int failureThreshold;
+
+    private final long openDuration;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private CircuitBreakerPolicy(Builder builder) {
+        this.failureThreshold = builder.failureThreshold;
+        this.openDuration = builder.openDuration;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public static final class Builder {
+
+        private int failureThreshold = 5;
+
+        private long openDuration = 30000; // 30 seconds
+
+        Builder() {
+        }
+
+        public Builder withFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * @param openDuration milliseconds the circuit stays open
+         * @return this builder
+         */
+        public Builder withOpenDuration(long openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        public CircuitBreakerPolicy build() {
+            if (failureThreshold <= 0 || openDuration <= 0) {
+                throw new IllegalArgumentException(
+                        "Invalid circuit breaker policy");
+            }
+            return new CircuitBreakerPolicy(this);
+        }
+    }
+}
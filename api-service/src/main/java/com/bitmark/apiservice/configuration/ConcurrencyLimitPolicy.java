@@ -0,0 +1,140 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+/**
+ * Adaptive limit of the requests in flight per endpoint class. The limit
+ * grows by one per round trip while latency stays close to the lowest
+ * latency seen, and shrinks by the backoff ratio on errors or when latency
+ * rises above the tolerance.
+ */
+public class ConcurrencyLimitPolicy {
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final double latencyTolerance;
+
+    private final int maxQueued;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private ConcurrencyLimitPolicy(Builder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.maxQueued = builder.maxQueued;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * @return the upper bound of the limit, 0 to use the max requests of
+     * the dispatcher
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public static final class Builder {
+
+        private int initialLimit = 10;
+
+        private int minLimit = 1;
+
+        private int maxLimit;
+
+        private double backoffRatio = 0.9;
+
+        private double latencyTolerance = 2;
+
+        private int maxQueued = Integer.MAX_VALUE;
+
+        Builder() {
+        }
+
+        public Builder withLimits(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * @param backoffRatio ratio applied to the limit on a drop, between
+         *                     0.5 and 1
+         * @return this builder
+         */
+        public Builder withBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * @param latencyTolerance how many times the lowest latency a
+         *                         round trip can take before it counts as a
+         *                         drop
+         * @return this builder
+         */
+        public Builder withLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * @param maxQueued requests waiting for the limit per endpoint class
+         *                  before new ones are rejected
+         * @return this builder
+         */
+        public Builder withMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        public ConcurrencyLimitPolicy build() {
+            if (minLimit <= 0 || initialLimit < minLimit
+                    || (maxLimit != 0 && maxLimit < initialLimit)) {
+                throw new IllegalArgumentException("Invalid limits");
+            }
+            if (backoffRatio < 0.5 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("Invalid backoff ratio");
+            }
+            if (latencyTolerance < 1 || maxQueued < 0) {
+                throw new IllegalArgumentException(
+                        "Invalid concurrency limit policy");
+            }
+            return new ConcurrencyLimitPolicy(this);
+        }
+    }
+}
@@ -7,8 +7,15 @@
 package com.bitmark.apiservice.configuration;
 
 import com.bitmark.apiservice.middleware.HttpObserver;
+import com.bitmark.apiservice.params.SigningPool;
+import com.bitmark.apiservice.tracing.Tracer;
+import com.bitmark.apiservice.tracing.Tracing;
+import com.bitmark.apiservice.utils.DirectExecutor;
 import okhttp3.logging.HttpLoggingInterceptor;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import static com.bitmark.cryptography.utils.Validator.checkNonNull;
 
 public class GlobalConfiguration {
@@ -46,6 +53,10 @@ public class GlobalConfiguration {
 
     private GlobalConfiguration(Builder builder) {
         this.builder = builder;
+        if (builder.tracer != null) {
+            Tracing.setTracer(builder.tracer);
+        }
+        SigningPool.setPool(builder.signingPool);
     }
 
     public static Network network() {
@@ -73,6 +84,96 @@ public class GlobalConfiguration {
         return INSTANCE.builder.httpObserver;
     }
 
+    public static int maxRequests() {
+        validate();
+        return INSTANCE.builder.maxRequests;
+    }
+
+    public static int maxRequestsPerHost() {
+        validate();
+        return INSTANCE.builder.maxRequestsPerHost;
+    }
+
+    public static int maxQueuedRequests() {
+        validate();
+        return INSTANCE.builder.maxQueuedRequests;
+    }
+
+    public static RejectionPolicy rejectionPolicy() {
+        validate();
+        return INSTANCE.builder.rejectionPolicy;
+    }
+
+    public static int maxIdleConnections() {
+        validate();
+        return INSTANCE.builder.maxIdleConnections;
+    }
+
+    public static int keepAliveDuration() {
+        validate();
+        return INSTANCE.builder.keepAliveDuration;
+    }
+
+    public static boolean requestCoalescing() {
+        validate();
+        return INSTANCE.builder.requestCoalescing;
+    }
+
+    public static int bitmarkBatchWindow() {
+        validate();
+        return INSTANCE.builder.bitmarkBatchWindow;
+    }
+
+    public static int bitmarkBatchSize() {
+        validate();
+        return INSTANCE.builder.bitmarkBatchSize;
+    }
+
+    public static RetryPolicy retryPolicy() {
+        validate();
+        return INSTANCE.builder.retryPolicy;
+    }
+
+    public static CircuitBreakerPolicy circuitBreakerPolicy() {
+        validate();
+        return INSTANCE.builder.circuitBreakerPolicy;
+    }
+
+    public static RateLimitPolicy rateLimitPolicy() {
+        validate();
+        return INSTANCE.builder.rateLimitPolicy;
+    }
+
+    public static ConcurrencyLimitPolicy concurrencyLimitPolicy() {
+        validate();
+        return INSTANCE.builder.concurrencyLimitPolicy;
+    }
+
+    public static int requestCompressionThreshold() {
+        validate();
+        return INSTANCE.builder.requestCompressionThreshold;
+    }
+
+    public static int conditionalRequestCapacity() {
+        validate();
+        return INSTANCE.builder.conditionalRequestCapacity;
+    }
+
+    public static Executor callbackExecutor() {
+        validate();
+        return INSTANCE.builder.callbackExecutor;
+    }
+
+    public static Executor decodeExecutor() {
+        validate();
+        return INSTANCE.builder.decodeExecutor;
+    }
+
+    public static CacheConfiguration cacheConfiguration() {
+        validate();
+        return INSTANCE.builder.cacheConfiguration;
+    }
+
     private static void validate() {
         if (INSTANCE == null) {
             throw new UnsupportedOperationException(
@@ -93,6 +194,46 @@ public class GlobalConfiguration {
 
         private HttpObserver httpObserver;
 
+        private int maxRequests = 64;
+
+        private int maxRequestsPerHost = 5;
+
+        private int maxQueuedRequests = Integer.MAX_VALUE; // unbounded
+
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+        private int maxIdleConnections = 5;
+
+        private int keepAliveDuration = 300; // 5 minutes
+
+        private boolean requestCoalescing = true;
+
+        private int bitmarkBatchWindow; // disabled
+
+        private int bitmarkBatchSize = 100;
+
+        private RetryPolicy retryPolicy; // disabled
+
+        private CircuitBreakerPolicy circuitBreakerPolicy; // disabled
+
+        private RateLimitPolicy rateLimitPolicy; // disabled
+
+        private ConcurrencyLimitPolicy concurrencyLimitPolicy; // disabled
+
+        private int requestCompressionThreshold = -1; // disabled
+
+        private CacheConfiguration cacheConfiguration; // disabled
+
+        private int conditionalRequestCapacity; // disabled
+
+        private Tracer tracer; // disabled
+
+        private Executor callbackExecutor = DirectExecutor.INSTANCE;
+
+        private Executor decodeExecutor; // decode on the network threads
+
+        private ForkJoinPool signingPool = ForkJoinPool.commonPool();
+
         Builder() {
         }
 
@@ -126,6 +267,186 @@ public class GlobalConfiguration {
             return this;
         }
 
+        public Builder withMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        public Builder withMaxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Bound the number of requests that are waiting for a free slot in
+         * the dispatcher. The {@link RejectionPolicy} decides what happens
+         * to a request when the queue is full.
+         *
+         * @param maxQueuedRequests maximum number of waiting requests
+         * @param rejectionPolicy   policy applied when the queue is full
+         * @return this builder
+         */
+        public Builder withRequestQueue(
+                int maxQueuedRequests,
+                RejectionPolicy rejectionPolicy
+        ) {
+            this.maxQueuedRequests = maxQueuedRequests;
+            this.rejectionPolicy = rejectionPolicy;
+            return this;
+        }
+
+        public Builder withConnectionPool(
+                int maxIdleConnections,
+                int keepAliveDuration
+        ) {
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveDuration = keepAliveDuration;
+            return this;
+        }
+
+        /**
+         * Share one network call between concurrent GET requests for the
+         * same URL. Callers sharing a call receive the same result instance.
+         *
+         * @param requestCoalescing true to coalesce identical GET requests
+         * @return this builder
+         */
+        public Builder withRequestCoalescing(boolean requestCoalescing) {
+            this.requestCoalescing = requestCoalescing;
+            return this;
+        }
+
+        /**
+         * Merge single bitmark lookups made within the window into one
+         * bitmark_ids query.
+         *
+         * @param windowMillis how long a lookup waits for others to join
+         * @param maxBatchSize number of bitmark ids that sends the query
+         *                     before the window ends, at most 100
+         * @return this builder
+         */
+        public Builder withBitmarkBatching(int windowMillis, int maxBatchSize) {
+            this.bitmarkBatchWindow = windowMillis;
+            this.bitmarkBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Builder withRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder withCircuitBreaker(
+                CircuitBreakerPolicy circuitBreakerPolicy
+        ) {
+            this.circuitBreakerPolicy = circuitBreakerPolicy;
+            return this;
+        }
+
+        public Builder withRateLimit(RateLimitPolicy rateLimitPolicy) {
+            this.rateLimitPolicy = rateLimitPolicy;
+            return this;
+        }
+
+        /**
+         * Adapt the number of requests in flight per {@code EndpointClass}
+         * to the observed latency and errors. Requests over the limit wait
+         * in a queue before they reach the dispatcher.
+         *
+         * @param concurrencyLimitPolicy policy of the adaptive limit
+         * @return this builder
+         */
+        public Builder withConcurrencyLimit(
+                ConcurrencyLimitPolicy concurrencyLimitPolicy
+        ) {
+            this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+            return this;
+        }
+
+        /**
+         * Gzip request bodies of at least the given size, e.g the issue
+         * requests with thousands of signatures. Responses are always
+         * decompressed transparently.
+         *
+         * @param threshold minimum body size in bytes to compress
+         * @return this builder
+         */
+        public Builder withRequestCompression(int threshold) {
+            this.requestCompressionThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Send GET requests with the ETag or Last-Modified of the previous
+         * response for the same URL, so that an unchanged list is answered
+         * with 304 Not Modified instead of the full body.
+         *
+         * @param capacity maximum number of URLs to remember
+         * @return this builder
+         */
+        public Builder withConditionalRequests(int capacity) {
+            this.conditionalRequestCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Report the phases of the SDK operations, e.g as Java Flight
+         * Recorder events. The tracer can also be changed at runtime with
+         * {@link Tracing#setTracer(Tracer)}.
+         *
+         * @param tracer receives the phases
+         * @return this builder
+         */
+        public Builder withTracer(Tracer tracer) {
+            this.tracer = tracer;
+            return this;
+        }
+
+        /**
+         * Run the callbacks of the API calls on the given executor instead
+         * of the network threads, so that slow handlers do not hold back
+         * other responses. The default runs them on the thread that
+         * completes the call.
+         *
+         * @param callbackExecutor runs the callbacks
+         * @return this builder
+         */
+        public Builder withCallbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * Decode the successful responses on the given executor instead of
+         * the network threads, which then go back to reading responses
+         * while large lists are parsed.
+         *
+         * @param decodeExecutor runs the decoding
+         * @return this builder
+         */
+        public Builder withDecodeExecutor(Executor decodeExecutor) {
+            this.decodeExecutor = decodeExecutor;
+            return this;
+        }
+
+        /**
+         * Sign the params with many items, e.g an issuance of many
+         * editions, on the given pool. The default is the common pool.
+         *
+         * @param signingPool pool to sign on, null to sign on the calling
+         *                    thread
+         * @return this builder
+         */
+        public Builder withSigningPool(ForkJoinPool signingPool) {
+            this.signingPool = signingPool;
+            return this;
+        }
+
+        public Builder withCache(CacheConfiguration cacheConfiguration) {
+            this.cacheConfiguration = cacheConfiguration;
+            return this;
+        }
+
         public void build() {
             GlobalConfiguration.createInstance(this);
         }
@@ -134,6 +455,24 @@ public class GlobalConfiguration {
             if (apiToken == null || apiToken.isEmpty()) {
                 throw new IllegalArgumentException("Api token is required");
             }
+            if (maxRequests <= 0 || maxRequestsPerHost <= 0) {
+                throw new IllegalArgumentException(
+                        "Max requests must be greater than zero");
+            }
+            if (maxQueuedRequests < 0 || rejectionPolicy == null) {
+                throw new IllegalArgumentException("Invalid request queue");
+            }
+            if (maxIdleConnections < 0 || keepAliveDuration <= 0) {
+                throw new IllegalArgumentException("Invalid connection pool");
+            }
+            if (bitmarkBatchWindow < 0 || bitmarkBatchSize <= 0
+                    || bitmarkBatchSize > 100) {
+                throw new IllegalArgumentException("Invalid bitmark batching");
+            }
+            if (callbackExecutor == null) {
+                throw new IllegalArgumentException(
+                        "Callback executor is required");
+            }
         }
 
     }
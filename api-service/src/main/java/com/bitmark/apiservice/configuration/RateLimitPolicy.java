@@ -0,0 +1,120 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+/**
+ * Token bucket budgets for read (GET) and write requests. A request over
+ * budget waits for its token instead of failing, unless the wait is longer
+ * than the max wait.
+ */
+public class RateLimitPolicy {
+
+    public static final long UNBOUNDED = -1;
+
+    private final double readsPerSecond;
+
+    private final int readBurst;
+
+    private final double writesPerSecond;
+
+    private final int writeBurst;
+
+    private final long maxWait;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private RateLimitPolicy(Builder builder) {
+        this.readsPerSecond = builder.readsPerSecond;
+        this.readBurst = builder.readBurst;
+        this.writesPerSecond = builder.writesPerSecond;
+        this.writeBurst = builder.writeBurst;
+        this.maxWait = builder.maxWait;
+    }
+
+    public double getReadsPerSecond() {
+        return readsPerSecond;
+    }
+
+    public int getReadBurst() {
+        return readBurst;
+    }
+
+    public double getWritesPerSecond() {
+        return writesPerSecond;
+    }
+
+    public int getWriteBurst() {
+        return writeBurst;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    public static final class Builder {
+
+        private double readsPerSecond; // unlimited
+
+        private int readBurst = 1;
+
+        private double writesPerSecond; // unlimited
+
+        private int writeBurst = 1;
+
+        private long maxWait = UNBOUNDED;
+
+        Builder() {
+        }
+
+        /**
+         * @param readsPerSecond rate of read requests, 0 for unlimited
+         * @param burst          number of read requests sent at once after
+         *                       an idle period
+         * @return this builder
+         */
+        public Builder withReads(double readsPerSecond, int burst) {
+            this.readsPerSecond = readsPerSecond;
+            this.readBurst = burst;
+            return this;
+        }
+
+        /**
+         * @param writesPerSecond rate of write requests, 0 for unlimited
+         * @param burst           number of write requests sent at once
+         *                        after an idle period
+         * @return this builder
+         */
+        public Builder withWrites(double writesPerSecond, int burst) {
+            this.writesPerSecond = writesPerSecond;
+            this.writeBurst = burst;
+            return this;
+        }
+
+        /**
+         * @param maxWait milliseconds a request may wait for its token,
+         *                {@link #UNBOUNDED} to always wait
+         * @return this builder
+         */
+        public Builder withMaxWait(long maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public RateLimitPolicy build() {
+            if (readsPerSecond < 0 || writesPerSecond < 0 || readBurst <= 0
+                    || writeBurst <= 0) {
+                throw new IllegalArgumentException("Invalid rate limit");
+            }
+            if (maxWait < 0 && maxWait != UNBOUNDED) {
+                throw new IllegalArgumentException("Invalid max wait");
+            }
+            return new RateLimitPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+/**
+ * What to do with a new request when the request queue is full.
+ */
+public enum RejectionPolicy {
+
+    /**
+     * Fail the request immediately through its callback.
+     */
+    ABORT,
+
+    /**
+     * Block the calling thread until the queue has room again. Do not use
+     * it if requests are sent from inside a response callback, the waiting
+     * callback keeps holding its dispatcher thread.
+     */
+    BLOCK
+}
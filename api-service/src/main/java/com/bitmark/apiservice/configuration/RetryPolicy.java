@@ -0,0 +1,188 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+import okhttp3.Request;
+import okhttp3.internal.http.HttpDate;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decide whether a failed request is sent again and how long to wait before
+ * it. GET requests are retried, writes only if their path is registered as
+ * safe to resubmit. Issuances are not by default: one can be stored even
+ * when the gateway answers 502 or 504, and sent again it fails as a
+ * duplicate.
+ */
+public class RetryPolicy {
+
+    private final int maxRetries;
+
+    private final long initialBackoff;
+
+    private final long maxBackoff;
+
+    private final double multiplier;
+
+    private final double jitter;
+
+    private final Set<Integer> retryableStatuses;
+
+    private final Set<String> safeWritePaths;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryableStatuses = Collections.unmodifiableSet(new HashSet<>(
+                builder.retryableStatuses));
+        this.safeWritePaths = Collections.unmodifiableSet(new HashSet<>(
+                builder.safeWritePaths));
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public boolean isRetryable(Request request) {
+        String method = request.method();
+        return "GET".equals(method) || "HEAD".equals(method)
+                || safeWritePaths.contains(request.url().encodedPath());
+    }
+
+    public boolean isRetryableStatus(int code) {
+        return retryableStatuses.contains(code);
+    }
+
+    /**
+     * @param retry      number of the retry, starting from 0
+     * @param retryAfter value of the Retry-After header, or null
+     * @return milliseconds to wait, or -1 if the server asks to wait longer
+     * than the max backoff
+     */
+    public long getDelay(int retry, String retryAfter) {
+        long requested = parseRetryAfter(retryAfter);
+        if (requested > maxBackoff) {
+            return -1;
+        }
+        double backoff = Math.min(
+                maxBackoff,
+                initialBackoff * Math.pow(multiplier, retry)
+        );
+        backoff *= 1 - jitter * ThreadLocalRandom.current().nextDouble();
+        return Math.max(requested, (long) backoff);
+    }
+
+    private static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException ignore) {
+        }
+        Date date = HttpDate.parse(retryAfter);
+        return date == null
+               ? 0
+               : Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+
+    public static final class Builder {
+
+        private int maxRetries = 3;
+
+        private long initialBackoff = 200;
+
+        private long maxBackoff = 10000;
+
+        private double multiplier = 2;
+
+        private double jitter = 0.5;
+
+        private Set<Integer> retryableStatuses = new HashSet<>(Arrays.asList(
+                429,
+                502,
+                503,
+                504
+        ));
+
+        private Set<String> safeWritePaths = new HashSet<>(Arrays.asList(
+                "/v3/register-asset"
+        ));
+
+        Builder() {
+        }
+
+        public Builder withMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * @param initialBackoff milliseconds to wait before the first retry
+         * @param maxBackoff     upper bound of the wait in milliseconds
+         * @param multiplier     growth of the wait after each retry
+         * @return this builder
+         */
+        public Builder withBackoff(
+                long initialBackoff,
+                long maxBackoff,
+                double multiplier
+        ) {
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * @param jitter fraction of the backoff that is randomized, between
+         *               0 and 1
+         * @return this builder
+         */
+        public Builder withJitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        public Builder withRetryableStatuses(Integer... statuses) {
+            this.retryableStatuses = new HashSet<>(Arrays.asList(statuses));
+            return this;
+        }
+
+        /**
+         * @param paths paths of the write requests that can be sent again
+         *              without side effects, e.g "/v3/issue"
+         * @return this builder
+         */
+        public Builder withSafeWritePaths(String... paths) {
+            this.safeWritePaths = new HashSet<>(Arrays.asList(paths));
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("Invalid max retries");
+            }
+            if (initialBackoff < 0 || maxBackoff < initialBackoff
+                    || multiplier < 1) {
+                throw new IllegalArgumentException("Invalid backoff");
+            }
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("Invalid jitter");
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the calls to one endpoint. Every attempt is recorded, so a
+ * request retried twice adds three latencies and two retries.
+ */
+public class EndpointMetrics {
+
+    private final Histogram latency = new Histogram();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder requestCount = new LongAdder();
+
+    private final LongAdder bytesSent = new LongAdder();
+
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder networkErrorCount = new LongAdder();
+
+    private final ConcurrentMap<Integer, LongAdder> errorCounts =
+            new ConcurrentHashMap<>();
+
+    EndpointMetrics() {
+    }
+
+    /**
+     * @param bytes size of the request body, negative if it is unknown
+     */
+    public void onSend(long bytes) {
+        requestCount.increment();
+        inFlight.incrementAndGet();
+        if (bytes > 0) {
+            bytesSent.add(bytes);
+        }
+    }
+
+    /**
+     * @param latency nanoseconds between sending the request and receiving
+     *                the response headers
+     * @param bytes   size of the response body, negative if it is unknown
+     */
+    public void onResponse(long latency, long bytes) {
+        inFlight.decrementAndGet();
+        this.latency.record(latency);
+        if (bytes > 0) {
+            bytesReceived.add(bytes);
+        }
+    }
+
+    /**
+     * Bytes of a response body whose size was unknown, counted as they are
+     * read
+     */
+    public void onReceived(long bytes) {
+        if (bytes > 0) {
+            bytesReceived.add(bytes);
+        }
+    }
+
+    public void onNetworkError(long latency) {
+        inFlight.decrementAndGet();
+        this.latency.record(latency);
+        networkErrorCount.increment();
+    }
+
+    /**
+     * The final response of the request was an error
+     *
+     * @param code HTTP status code of the response
+     */
+    public void onError(int code) {
+        errorCounts.computeIfAbsent(code, c -> new LongAdder()).increment();
+    }
+
+    public void onRetry() {
+        retryCount.increment();
+    }
+
+    EndpointSnapshot snapshot() {
+        Map<Integer, Long> errors = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : errorCounts.entrySet()) {
+            errors.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new EndpointSnapshot(
+                latency.snapshot(),
+                inFlight.get(),
+                requestCount.sum(),
+                bytesSent.sum(),
+                bytesReceived.sum(),
+                retryCount.sum(),
+                networkErrorCount.sum(),
+                Collections.unmodifiableMap(errors)
+        );
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+import java.util.Map;
+
+public class EndpointSnapshot {
+
+    private final HistogramSnapshot latency;
+
+    private final int inFlight;
+
+    private final long requestCount;
+
+    private final long bytesSent;
+
+    private final long bytesReceived;
+
+    private final long retryCount;
+
+    private final long networkErrorCount;
+
+    private final Map<Integer, Long> errorCounts;
+
+    EndpointSnapshot(
+            HistogramSnapshot latency,
+            int inFlight,
+            long requestCount,
+            long bytesSent,
+            long bytesReceived,
+            long retryCount,
+            long networkErrorCount,
+            Map<Integer, Long> errorCounts
+    ) {
+        this.latency = latency;
+        this.inFlight = inFlight;
+        this.requestCount = requestCount;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.retryCount = retryCount;
+        this.networkErrorCount = networkErrorCount;
+        this.errorCounts = errorCounts;
+    }
+
+    /**
+     * @return latencies of all attempts in nanoseconds
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return number of attempts sent, including retries
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getRetryCount() {
+        return retryCount;
+    }
+
+    public long getNetworkErrorCount() {
+        return networkErrorCount;
+    }
+
+    /**
+     * @return number of requests that failed with an HttpException, by
+     * status code
+     */
+    public Map<Integer, Long> getErrorCounts() {
+        return errorCounts;
+    }
+}
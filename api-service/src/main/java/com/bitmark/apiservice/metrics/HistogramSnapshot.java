@@ -0,0 +1,79 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+/**
+ * Values of a {@link Histogram} at the time of the snapshot. Latencies and
+ * timings are in nanoseconds.
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long min;
+
+    private final long max;
+
+    private final long sum;
+
+    HistogramSnapshot(long[] counts, long count, long min, long max, long sum) {
+        this.counts = counts;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g 99.9
+     * @return the value that the given percentage of the recorded values
+     * are lower or equal to, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(
+                1,
+                (long) Math.ceil(Math.min(100, percentile) / 100 * count)
+        );
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, Histogram.highestValueOf(i)));
+            }
+        }
+        return max;
+    }
+
+    public long getMedian() {
+        return getValueAtPercentile(50);
+    }
+
+    public long get99thPercentile() {
+        return getValueAtPercentile(99);
+    }
+}
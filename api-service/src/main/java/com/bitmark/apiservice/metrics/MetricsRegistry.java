@@ -0,0 +1,106 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Dependency free metrics of the SDK. Recording only touches striped
+ * counters and atomic arrays, and {@link #snapshot()} copies the current
+ * values so that it can be scraped at any rate into another monitoring
+ * system.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints =
+            new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Histogram> timers =
+            new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongSupplier> gauges =
+            new ConcurrentHashMap<>();
+
+    /**
+     * @return the registry the SDK records into
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param name the method and the path of the endpoint, e.g
+     *             GET /v3/bitmarks/{id}
+     */
+    public EndpointMetrics endpoint(String name) {
+        // Look up first, computeIfAbsent locks even if the key is present
+        EndpointMetrics metrics = endpoints.get(name);
+        return metrics != null
+               ? metrics
+               : endpoints.computeIfAbsent(name, n -> new EndpointMetrics());
+    }
+
+    /**
+     * @param name e.g TransferParams.sign
+     * @return the histogram of the durations of the operation in nanoseconds
+     */
+    public Histogram timer(String name) {
+        Histogram timer = timers.get(name);
+        return timer != null
+               ? timer
+               : timers.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Record the time elapsed since the start in the timer of the name
+     *
+     * @param start value of {@link System#nanoTime()} at the start
+     * @return the current value of {@link System#nanoTime()}, to start
+     * timing the next step
+     */
+    public long recordSince(String name, long start) {
+        long now = System.nanoTime();
+        timer(name).record(now - start);
+        return now;
+    }
+
+    /**
+     * Register a value read at snapshot time. A gauge registered with the
+     * same name replaces the previous one.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, EndpointSnapshot> endpointSnapshots = new TreeMap<>();
+        for (Map.Entry<String, EndpointMetrics> entry : endpoints.entrySet()) {
+            endpointSnapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        Map<String, HistogramSnapshot> timerSnapshots = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : timers.entrySet()) {
+            timerSnapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        Map<String, Long> gaugeValues = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+            gaugeValues.put(entry.getKey(), entry.getValue().getAsLong());
+        }
+        return new MetricsSnapshot(
+                System.currentTimeMillis(),
+                Collections.unmodifiableMap(endpointSnapshots),
+                Collections.unmodifiableMap(timerSnapshots),
+                Collections.unmodifiableMap(gaugeValues)
+        );
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+import java.util.Map;
+
+public class MetricsSnapshot {
+
+    private final long timestamp;
+
+    private final Map<String, EndpointSnapshot> endpoints;
+
+    private final Map<String, HistogramSnapshot> timers;
+
+    private final Map<String, Long> gauges;
+
+    MetricsSnapshot(
+            long timestamp,
+            Map<String, EndpointSnapshot> endpoints,
+            Map<String, HistogramSnapshot> timers,
+            Map<String, Long> gauges
+    ) {
+        this.timestamp = timestamp;
+        this.endpoints = endpoints;
+        this.timers = timers;
+        this.gauges = gauges;
+    }
+
+    /**
+     * @return time of the snapshot in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<String, EndpointSnapshot> getEndpoints() {
+        return endpoints;
+    }
+
+    public EndpointSnapshot getEndpoint(String name) {
+        return endpoints.get(name);
+    }
+
+    public Map<String, HistogramSnapshot> getTimers() {
+        return timers;
+    }
+
+    public HistogramSnapshot getTimer(String name) {
+        return timers.get(name);
+    }
+
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+}
@@ -17,20 +17,35 @@ public class BitmarkApiInterceptor implements Interceptor {
 
     private String apiToken;
 
+    private boolean conditionalRequests;
+
     public BitmarkApiInterceptor(String apiToken) {
+        this(apiToken, false);
+    }
+
+    /**
+     * @param conditionalRequests whether the GET requests are made
+     *                            conditional by a
+     *                            {@link ConditionalRequestInterceptor}. If
+     *                            not, the requests still ask the servers on
+     *                            the way not to cache the responses.
+     */
+    public BitmarkApiInterceptor(String apiToken, boolean conditionalRequests) {
         this.apiToken = apiToken;
+        this.conditionalRequests = conditionalRequests;
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
-        Request request = chain.request();
-        request = request.newBuilder()
+        Request.Builder builder = chain.request().newBuilder()
                 .addHeader("API-TOKEN", apiToken)
                 .addHeader("Content-Type", "application/json")
-                .addHeader("Accept", "application/json")
-                .addHeader("Cache-Control", "no-cache")
-                .addHeader("Cache-Control", "no-store")
-                .addHeader("Accept-Encoding", "*")
+                .addHeader("Accept", "application/json");
+        if (!conditionalRequests) {
+            builder.addHeader("Cache-Control", "no-cache")
+                    .addHeader("Cache-Control", "no-store");
+        }
+        Request request = builder
                 .addHeader(
                         "User-Agent",
                         String.format(
@@ -44,11 +59,11 @@ public class BitmarkApiInterceptor implements Interceptor {
 
         HttpObserver observer = GlobalConfiguration.httpObserver();
         if (observer != null) {
-            observer.onRequest(request.newBuilder().build());
+            observer.onRequest(request);
         }
         Response response = chain.proceed(request);
         if (observer != null) {
-            observer.onRespond(response.newBuilder().build());
+            observer.onRespond(response);
         }
         return response;
     }
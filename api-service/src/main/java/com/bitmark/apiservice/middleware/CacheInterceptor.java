@@ -0,0 +1,212 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import com.bitmark.apiservice.cache.CacheEntry;
+import com.bitmark.apiservice.cache.ResponseCache;
+import com.bitmark.apiservice.configuration.CacheConfiguration;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import okhttp3.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serve asset and transaction lookups from a {@link ResponseCache}.
+ * Confirmed assets and transactions are cached forever, pending ones follow
+ * the max age and stale-while-revalidate of the {@link CacheConfiguration}.
+ */
+public class CacheInterceptor implements Interceptor {
+
+    private final ResponseCache cache;
+
+    private final long maxAge;
+
+    private final long staleWhileRevalidate;
+
+    private final long notFoundTtl;
+
+    // Keys being refreshed in the background, mapped to the request of the
+    // cloned call so that only that call bypasses the cache
+    private final ConcurrentMap<String, Request> revalidating =
+            new ConcurrentHashMap<>();
+
+    public CacheInterceptor(CacheConfiguration configuration) {
+        this(new ResponseCache(configuration), configuration);
+    }
+
+    public CacheInterceptor(
+            ResponseCache cache,
+            CacheConfiguration configuration
+    ) {
+        this.cache = cache;
+        this.maxAge = configuration.getMaxAge() * 1000L;
+        this.staleWhileRevalidate =
+                configuration.getStaleWhileRevalidate() * 1000L;
+        this.notFoundTtl = configuration.getNotFoundTtl() * 1000L;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String record = getRecordName(request);
+        if (record == null) {
+            return chain.proceed(request);
+        }
+
+        String key = request.url().toString();
+        if (revalidating.get(key) == request) {
+            try {
+                return store(key, record, chain.proceed(request));
+            } finally {
+                revalidating.remove(key, request);
+            }
+        }
+
+        CacheEntry entry = cache.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.isFresh(now)) {
+            return toResponse(request, entry);
+        }
+        if (entry != null && entry.isUsable(now)) {
+            revalidate(chain, key);
+            return toResponse(request, entry);
+        }
+        return store(key, record, chain.proceed(request));
+    }
+
+    private void revalidate(Chain chain, String key) {
+        Call call = chain.call().clone();
+        if (revalidating.putIfAbsent(key, call.request()) != null) {
+            return;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                revalidating.remove(key, call.request());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+        });
+    }
+
+    private Response store(String key, String record, Response response)
+            throws IOException {
+        int code = response.code();
+        if (code != 200 && (code != 404 || notFoundTtl == 0)) {
+            return response;
+        }
+
+        ResponseBody responseBody = response.body();
+        MediaType mediaType = responseBody.contentType();
+        byte[] body = responseBody.bytes();
+        String contentType = mediaType == null ? null : mediaType.toString();
+        long now = System.currentTimeMillis();
+        if (code == 404) {
+            cache.put(key, new CacheEntry(
+                    code,
+                    contentType,
+                    body,
+                    now + notFoundTtl,
+                    now + notFoundTtl
+            ));
+        } else if (isConfirmed(record, body)) {
+            cache.put(key, CacheEntry.immutable(code, contentType, body));
+        } else if (maxAge + staleWhileRevalidate > 0) {
+            cache.put(key, new CacheEntry(
+                    code,
+                    contentType,
+                    body,
+                    now + maxAge,
+                    now + maxAge + staleWhileRevalidate
+            ));
+        } else {
+            cache.remove(key);
+        }
+        return response.newBuilder()
+                .body(ResponseBody.create(mediaType, body))
+                .build();
+    }
+
+    private static Response toResponse(Request request, CacheEntry entry) {
+        MediaType mediaType = entry.getContentType() == null
+                              ? null
+                              : MediaType.parse(entry.getContentType());
+        long now = System.currentTimeMillis();
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(entry.getCode())
+                .message(entry.getCode() == 200 ? "OK" : "Not Found")
+                .body(ResponseBody.create(mediaType, entry.getBody()))
+                .sentRequestAtMillis(now)
+                .receivedResponseAtMillis(now)
+                .build();
+    }
+
+    /**
+     * @return the name of the record in the response body if the request
+     * looks up a single asset or transaction, otherwise null
+     */
+    private static String getRecordName(Request request) {
+        if (!"GET".equals(request.method())) {
+            return null;
+        }
+        List<String> segments = request.url().pathSegments();
+        if (segments.size() < 2) {
+            return null;
+        }
+        switch (segments.get(segments.size() - 2)) {
+            case "assets":
+                return "asset";
+            case "txs":
+                return "tx";
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isConfirmed(String record, byte[] body) {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(body),
+                StandardCharsets.UTF_8
+        ))) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return false;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!record.equals(reader.nextName())
+                        || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("status".equals(reader.nextName())
+                            && reader.peek() == JsonToken.STRING) {
+                        return "confirmed".equals(reader.nextString());
+                    }
+                    reader.skipValue();
+                }
+                return false;
+            }
+            return false;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+}
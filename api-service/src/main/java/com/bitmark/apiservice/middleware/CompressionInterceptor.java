@@ -0,0 +1,151 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import okhttp3.*;
+import okio.*;
+
+import java.io.IOException;
+
+/**
+ * Compress request bodies that are larger than the threshold and count the
+ * bytes saved by compression. Responses are decompressed by OkHttp, this
+ * interceptor only counts their decoded bytes. The compressed bytes are
+ * counted by {@link #networkInterceptor()}.
+ */
+public class CompressionInterceptor implements Interceptor {
+
+    private final long threshold;
+
+    private final CompressionStats stats;
+
+    /**
+     * @param threshold minimum size in bytes of a request body to be
+     *                  compressed, negative to never compress requests
+     * @param stats     receives the byte counts
+     */
+    public CompressionInterceptor(long threshold, CompressionStats stats) {
+        this.threshold = threshold;
+        this.stats = stats;
+    }
+
+    public Interceptor networkInterceptor() {
+        return chain -> {
+            Response response = chain.proceed(chain.request());
+            if (!isGzip(response)) {
+                return response;
+            }
+            return countBody(response, stats::onCompressedResponseBytes);
+        };
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (threshold >= 0 && body != null
+                && request.header("Content-Encoding") == null
+                && body.contentLength() >= threshold) {
+            request = request.newBuilder()
+                    .header("Content-Encoding", "gzip")
+                    .method(request.method(), gzip(body))
+                    .build();
+        }
+
+        Response response = chain.proceed(request);
+        Response networkResponse = response.networkResponse();
+        if (networkResponse == null || !isGzip(networkResponse)) {
+            return response;
+        }
+        return countBody(response, stats::onResponseBytes);
+    }
+
+    /**
+     * Compress the body while it is written, so that a streamed body is not
+     * held in memory. The compressed length is unknown until then, the
+     * body is sent chunked.
+     */
+    private RequestBody gzip(RequestBody body) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return body.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                CountingSink counter = new CountingSink(sink);
+                try (BufferedSink gzip = Okio.buffer(new GzipSink(counter))) {
+                    body.writeTo(gzip);
+                }
+                stats.onRequest(body.contentLength(), counter.count);
+            }
+        };
+    }
+
+    private static boolean isGzip(Response response) {
+        return "gzip".equalsIgnoreCase(response.header("Content-Encoding"));
+    }
+
+    private static Response countBody(Response response, Counter counter) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        Source source = new ForwardingSource(body.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read > 0) {
+                    counter.add(read);
+                }
+                return read;
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(
+                        body.contentType(),
+                        body.contentLength(),
+                        Okio.buffer(source)
+                ))
+                .build();
+    }
+
+    /**
+     * Counts the bytes written to the request, which stays open for OkHttp
+     * when the gzip stream is closed
+     */
+    private static final class CountingSink extends ForwardingSink {
+
+        private long count;
+
+        private CountingSink(Sink delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            count += byteCount;
+            super.write(source, byteCount);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private interface Counter {
+
+        void add(long bytes);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bytes before and after compression of the compressed request and
+ * response bodies
+ */
+public class CompressionStats {
+
+    private final LongAdder requestBytes = new LongAdder();
+
+    private final LongAdder compressedRequestBytes = new LongAdder();
+
+    private final LongAdder responseBytes = new LongAdder();
+
+    private final LongAdder compressedResponseBytes = new LongAdder();
+
+    void onRequest(long bytes, long compressedBytes) {
+        requestBytes.add(bytes);
+        compressedRequestBytes.add(compressedBytes);
+    }
+
+    void onResponseBytes(long bytes) {
+        responseBytes.add(bytes);
+    }
+
+    void onCompressedResponseBytes(long bytes) {
+        compressedResponseBytes.add(bytes);
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getCompressedRequestBytes() {
+        return compressedRequestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    public long getCompressedResponseBytes() {
+        return compressedResponseBytes.sum();
+    }
+
+    /**
+     * @return bytes that did not go over the network thanks to compression
+     */
+    public long getBytesSaved() {
+        return getRequestBytes() - getCompressedRequestBytes()
+                + getResponseBytes() - getCompressedResponseBytes();
+    }
+}
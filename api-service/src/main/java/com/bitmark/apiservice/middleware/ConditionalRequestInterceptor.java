@@ -0,0 +1,186 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import okhttp3.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remember the ETag and Last-Modified validators of GET responses and send
+ * the next request for the same URL as a conditional one. A 304 is answered
+ * with the body kept from the previous response, so polling a list that has
+ * not changed does not transfer it again.
+ */
+public class ConditionalRequestInterceptor implements Interceptor {
+
+    // Larger bodies are not kept, the memory is better spent on more URLs
+    private static final int MAX_BODY_SIZE = 1024 * 1024;
+
+    private final Map<String, Validated> entries;
+
+    private final LongAdder notModifiedCount = new LongAdder();
+
+    /**
+     * @param capacity maximum number of URLs to remember, the least recently
+     *                 used one is forgotten first
+     */
+    public ConditionalRequestInterceptor(int capacity) {
+        entries = new LinkedHashMap<String, Validated>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Validated> eldest
+            ) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method())
+                || request.header("If-None-Match") != null
+                || request.header("If-Modified-Since") != null) {
+            return chain.proceed(request);
+        }
+
+        String key = normalize(request.url());
+        Validated entry = get(key);
+        if (entry != null) {
+            Request.Builder builder = request.newBuilder();
+            if (entry.etag != null) {
+                builder.header("If-None-Match", entry.etag);
+            }
+            if (entry.lastModified != null) {
+                builder.header("If-Modified-Since", entry.lastModified);
+            }
+            request = builder.build();
+        }
+
+        Response response = chain.proceed(request);
+        if (response.code() == 304 && entry != null) {
+            response.close();
+            notModifiedCount.increment();
+            Validated updated = entry.update(
+                    response.header("ETag"),
+                    response.header("Last-Modified")
+            );
+            if (updated != entry) {
+                put(key, updated);
+            }
+            return response.newBuilder()
+                    .code(200)
+                    .message("OK")
+                    .body(ResponseBody.create(entry.mediaType, entry.body))
+                    .build();
+        }
+        if (response.code() != 200) {
+            return response;
+        }
+
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        ResponseBody body = response.body();
+        if ((etag == null && lastModified == null) || body == null
+                || body.contentLength() > MAX_BODY_SIZE) {
+            remove(key);
+            return response;
+        }
+
+        MediaType mediaType = body.contentType();
+        byte[] bytes = body.bytes();
+        if (bytes.length <= MAX_BODY_SIZE) {
+            put(key, new Validated(etag, lastModified, mediaType, bytes));
+        } else {
+            remove(key);
+        }
+        return response.newBuilder()
+                .body(ResponseBody.create(mediaType, bytes))
+                .build();
+    }
+
+    /**
+     * @return number of responses served from the kept body after the
+     * server answered 304 Not Modified
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.sum();
+    }
+
+    private synchronized Validated get(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void put(String key, Validated entry) {
+        entries.put(key, entry);
+    }
+
+    private synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * @return the URL with its query parameters sorted, so that the same
+     * query built in a different order shares the validators
+     */
+    private static String normalize(HttpUrl url) {
+        List<String> parameters = new ArrayList<>(url.querySize());
+        for (int i = 0; i < url.querySize(); i++) {
+            String value = url.queryParameterValue(i);
+            parameters.add(url.queryParameterName(i) + "=" + (value == null
+                                                              ? ""
+                                                              : value));
+        }
+        Collections.sort(parameters);
+        HttpUrl.Builder builder = url.newBuilder().query(null).fragment(null);
+        return builder.build().toString() + "?" + String.join("&", parameters);
+    }
+
+    private static final class Validated {
+
+        private final String etag;
+
+        private final String lastModified;
+
+        private final MediaType mediaType;
+
+        private final byte[] body;
+
+        private Validated(
+                String etag,
+                String lastModified,
+                MediaType mediaType,
+                byte[] body
+        ) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.mediaType = mediaType;
+            this.body = body;
+        }
+
+        private Validated update(String etag, String lastModified) {
+            if ((etag == null || etag.equals(this.etag))
+                    && (lastModified == null
+                                || lastModified.equals(this.lastModified))) {
+                return this;
+            }
+            return new Validated(
+                    etag == null ? this.etag : etag,
+                    lastModified == null ? this.lastModified : lastModified,
+                    mediaType,
+                    body
+            );
+        }
+    }
+}
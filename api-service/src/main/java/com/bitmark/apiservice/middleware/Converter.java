@@ -7,6 +7,9 @@
 package com.bitmark.apiservice.middleware;
 
 import com.bitmark.apiservice.response.*;
+import com.bitmark.apiservice.tracing.Phase;
+import com.bitmark.apiservice.tracing.Span;
+import com.bitmark.apiservice.tracing.Tracing;
 import com.bitmark.apiservice.utils.Pair;
 import com.bitmark.apiservice.utils.callback.Callback1;
 import com.bitmark.apiservice.utils.error.UnexpectedException;
@@ -16,35 +19,72 @@ import com.bitmark.apiservice.utils.record.ShareGrantRecord;
 import com.bitmark.apiservice.utils.record.ShareRecord;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import okhttp3.Response;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static com.bitmark.apiservice.utils.HttpUtils.jsonToMap;
+import static com.bitmark.apiservice.utils.HttpUtils.getEndpointName;
 
 public class Converter {
 
     private static final Gson GSON = new GsonBuilder().create();
 
+    // Adapters are resolved once and shared, all of them are thread-safe
+
+    private static final TypeAdapter<String> STRING = GSON.getAdapter(String.class);
+
+    private static final TypeAdapter<List<BitmarkRecord>> BITMARK_RECORDS = GSON
+            .getAdapter(new TypeToken<List<BitmarkRecord>>() {
+            });
+
+    private static final TypeAdapter<RegistrationResponse> REGISTRATION_RESPONSE = GSON
+            .getAdapter(RegistrationResponse.class);
+
+    private static final TypeAdapter<GetBitmarkResponse> GET_BITMARK_RESPONSE = GSON
+            .getAdapter(GetBitmarkResponse.class);
+
+    private static final TypeAdapter<GetBitmarksResponse> GET_BITMARKS_RESPONSE = GSON
+            .getAdapter(GetBitmarksResponse.class);
+
+    private static final TypeAdapter<AssetRecord> ASSET_RECORD = GSON.getAdapter(
+            AssetRecord.class);
+
+    private static final TypeAdapter<List<AssetRecord>> ASSET_RECORDS = GSON
+            .getAdapter(new TypeToken<List<AssetRecord>>() {
+            });
+
+    private static final TypeAdapter<GetTransactionResponse> GET_TRANSACTION_RESPONSE = GSON
+            .getAdapter(GetTransactionResponse.class);
+
+    private static final TypeAdapter<GetTransactionsResponse> GET_TRANSACTIONS_RESPONSE = GSON
+            .getAdapter(GetTransactionsResponse.class);
+
+    private static final TypeAdapter<List<ShareRecord>> SHARE_RECORDS = GSON
+            .getAdapter(new TypeToken<List<ShareRecord>>() {
+            });
+
+    private static final TypeAdapter<List<ShareGrantRecord>> SHARE_GRANT_RECORDS = GSON
+            .getAdapter(new TypeToken<List<ShareGrantRecord>>() {
+            });
+
     public static Callback1<Response> toIssueResponse(Callback1<List<BitmarkRecord>> callback) {
         return new Callback1<Response>() {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> mapJson = jsonToMap(raw);
-                    JsonArray jsonArray = GSON.toJsonTree(mapJson.get("bitmarks"))
-                            .getAsJsonArray();
-                    List<BitmarkRecord> records = new ArrayList<>(jsonArray.size());
-                    for (JsonElement jsonElement : jsonArray) {
-                        records.add(GSON.fromJson(jsonElement.toString(), BitmarkRecord.class));
-                    }
-                    callback.onSuccess(records);
+                    List<BitmarkRecord> records = decodeField(
+                            res,
+                            "bitmarks",
+                            BITMARK_RECORDS
+                    );
+                    callback.onSuccess(checkPresent(records, "bitmarks"));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -64,12 +104,7 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    RegistrationResponse response = GSON.fromJson(
-                            raw,
-                            RegistrationResponse.class
-                    );
-                    callback.onSuccess(response);
+                    callback.onSuccess(decode(res, REGISTRATION_RESPONSE));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -87,8 +122,12 @@ public class Converter {
             @Override
             public void onSuccess(Response response) {
                 try {
-                    String raw = response.body().string();
-                    Map<String, Object> json = jsonToMap(raw);
+                    Map<String, String> json = decodeStrings(
+                            response,
+                            "status",
+                            "txid",
+                            "txId"
+                    );
                     if (json.containsKey("status")) {
                         String status = json.get("status").toString();
                         if (status.equals("ok")) {
@@ -120,9 +159,10 @@ public class Converter {
             @Override
             public void onSuccess(Response response) {
                 try {
-                    String raw = response.body().string();
-                    Map<String, Object> json = jsonToMap(raw);
-                    callback.onSuccess(json.get("status").toString());
+                    callback.onSuccess(checkPresent(
+                            decodeField(response, "status", STRING),
+                            "status"
+                    ));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -140,9 +180,10 @@ public class Converter {
             @Override
             public void onSuccess(Response response) {
                 try {
-                    String raw = response.body().string();
-                    Map<String, Object> json = jsonToMap(raw);
-                    callback.onSuccess(json.get("offer_id").toString());
+                    callback.onSuccess(checkPresent(
+                            decodeField(response, "offer_id", STRING),
+                            "offer_id"
+                    ));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -160,11 +201,7 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    callback.onSuccess(GSON.fromJson(
-                            raw,
-                            GetBitmarkResponse.class
-                    ));
+                    callback.onSuccess(decode(res, GET_BITMARK_RESPONSE));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -185,11 +222,7 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    callback.onSuccess(GSON.fromJson(
-                            raw,
-                            GetBitmarksResponse.class
-                    ));
+                    callback.onSuccess(decode(res, GET_BITMARKS_RESPONSE));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -208,17 +241,12 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("asset"))
-                            .getAsJsonObject()
-                            .toString();
-                    AssetRecord asset = GSON.fromJson(
-                            json,
-                            new TypeToken<AssetRecord>() {
-                            }.getType()
+                    AssetRecord asset = decodeField(
+                            res,
+                            "asset",
+                            ASSET_RECORD
                     );
-                    callback.onSuccess(asset);
+                    callback.onSuccess(checkPresent(asset, "asset"));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -236,17 +264,12 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("assets"))
-                            .getAsJsonArray()
-                            .toString();
-                    List<AssetRecord> assets = GSON.fromJson(
-                            json,
-                            new TypeToken<List<AssetRecord>>() {
-                            }.getType()
+                    List<AssetRecord> assets = decodeField(
+                            res,
+                            "assets",
+                            ASSET_RECORDS
                     );
-                    callback.onSuccess(assets);
+                    callback.onSuccess(checkPresent(assets, "assets"));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -266,12 +289,7 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    GetTransactionResponse response = GSON.fromJson(
-                            raw,
-                            GetTransactionResponse.class
-                    );
-                    callback.onSuccess(response);
+                    callback.onSuccess(decode(res, GET_TRANSACTION_RESPONSE));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -291,12 +309,7 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    GetTransactionsResponse response = GSON.fromJson(
-                            raw,
-                            GetTransactionsResponse.class
-                    );
-                    callback.onSuccess(response);
+                    callback.onSuccess(decode(res, GET_TRANSACTIONS_RESPONSE));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -316,11 +329,14 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> mapRes = jsonToMap(raw);
+                    Map<String, String> mapRes = decodeStrings(
+                            res,
+                            "tx_id",
+                            "share_id"
+                    );
                     callback.onSuccess(new Pair<>(
-                            mapRes.get("tx_id").toString(),
-                            mapRes.get("share_id").toString()
+                            checkPresent(mapRes.get("tx_id"), "tx_id"),
+                            checkPresent(mapRes.get("share_id"), "share_id")
                     ));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
@@ -339,9 +355,10 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> mapRes = jsonToMap(raw);
-                    callback.onSuccess(mapRes.get("offer_id").toString());
+                    callback.onSuccess(checkPresent(
+                            decodeField(res, "offer_id", STRING),
+                            "offer_id"
+                    ));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -359,15 +376,9 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("shares"))
-                            .getAsJsonArray()
-                            .toString();
-                    List<ShareRecord> shares = GSON.fromJson(
-                            json,
-                            new TypeToken<List<ShareRecord>>() {
-                            }.getType()
+                    List<ShareRecord> shares = checkPresent(
+                            decodeField(res, "shares", SHARE_RECORDS),
+                            "shares"
                     );
                     callback.onSuccess(!shares.isEmpty()
                                        ? shares.get(0)
@@ -389,17 +400,12 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("shares"))
-                            .getAsJsonArray()
-                            .toString();
-                    List<ShareRecord> shares = GSON.fromJson(
-                            json,
-                            new TypeToken<List<ShareRecord>>() {
-                            }.getType()
+                    List<ShareRecord> shares = decodeField(
+                            res,
+                            "shares",
+                            SHARE_RECORDS
                     );
-                    callback.onSuccess(shares);
+                    callback.onSuccess(checkPresent(shares, "shares"));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -419,17 +425,15 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("offers"))
-                            .getAsJsonArray()
-                            .toString();
-                    List<ShareGrantRecord> shareGrantRecords = GSON.fromJson(
-                            json,
-                            new TypeToken<List<ShareGrantRecord>>() {
-                            }.getType()
+                    List<ShareGrantRecord> shareGrantRecords = decodeField(
+                            res,
+                            "offers",
+                            SHARE_GRANT_RECORDS
                     );
-                    callback.onSuccess(shareGrantRecords);
+                    callback.onSuccess(checkPresent(
+                            shareGrantRecords,
+                            "offers"
+                    ));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -447,9 +451,10 @@ public class Converter {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    callback.onSuccess(jsonMap.get("token").toString());
+                    callback.onSuccess(checkPresent(
+                            decodeField(res, "token", STRING),
+                            "token"
+                    ));
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -462,4 +467,107 @@ public class Converter {
         };
     }
 
+    /**
+     * Decode the whole response body with the given adapter, reading
+     * straight from the body stream without buffering it into a String.
+     */
+    private static <T> T decode(Response res, TypeAdapter<T> adapter)
+            throws IOException {
+        Span span = beginDecode(res);
+        try (JsonReader reader = newReader(res)) {
+            return adapter.read(reader);
+        } finally {
+            span.end(res.body().contentLength());
+        }
+    }
+
+    /**
+     * Decode a single top-level field of the response body and skip the
+     * others.
+     *
+     * @return the decoded value or null if the field is not found
+     */
+    private static <T> T decodeField(
+            Response res,
+            String name,
+            TypeAdapter<T> adapter
+    ) throws IOException {
+        Span span = beginDecode(res);
+        try (JsonReader reader = newReader(res)) {
+            T value = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (name.equals(reader.nextName())) {
+                    value = adapter.read(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return value;
+        } finally {
+            span.end(res.body().contentLength());
+        }
+    }
+
+    /**
+     * Decode the given top-level primitive fields of the response body as
+     * strings. Fields that are missing or not primitive are left out.
+     */
+    private static Map<String, String> decodeStrings(
+            Response res,
+            String... names
+    ) throws IOException {
+        Span span = beginDecode(res);
+        try (JsonReader reader = newReader(res)) {
+            Map<String, String> values = new HashMap<>(names.length);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (contains(names, name) && isPrimitive(reader.peek())) {
+                    values.put(name, STRING.read(reader));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return values;
+        } finally {
+            span.end(res.body().contentLength());
+        }
+    }
+
+    private static Span beginDecode(Response res) {
+        if (!Tracing.isEnabled()) {
+            return Span.NOOP;
+        }
+        return Tracing.begin(Phase.DECODE, getEndpointName(res.request()));
+    }
+
+    private static JsonReader newReader(Response res) {
+        JsonReader reader = new JsonReader(res.body().charStream());
+        reader.setLenient(true);
+        return reader;
+    }
+
+    private static boolean isPrimitive(JsonToken token) {
+        return token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN;
+    }
+
+    private static boolean contains(String[] names, String name) {
+        for (String n : names) {
+            if (n.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> T checkPresent(T value, String name) {
+        if (value == null) {
+            throw new UnexpectedException("missing " + name + " in response");
+        }
+        return value;
+    }
+
 }
@@ -0,0 +1,434 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.paging;
+
+import com.bitmark.apiservice.BitmarkApi;
+import com.bitmark.apiservice.params.query.AssetQueryBuilder;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.params.query.PageableQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.params.query.TransactionQueryBuilder;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.response.GetTransactionsResponse;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.TransactionRecord;
+
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Page through the records of a list query by their offset. The next page
+ * is fetched while the current one is consumed and at most
+ * {@code maxBufferedPages} pages are buffered ahead of the consumer.
+ * <p>
+ * Records can be consumed as an {@link Iterator}, a {@link Stream} or
+ * asynchronously by a {@link PageListener}, but only one of them per cursor.
+ * The cursor mutates the {@code at} value of its query builder.
+ */
+public class PageCursor<T> implements Iterator<T>, AutoCloseable {
+
+    public static final int DEFAULT_MAX_BUFFERED_PAGES = 2;
+
+    private final PageSource<T> source;
+
+    private final PageableQueryBuilder builder;
+
+    private final ToLongFunction<T> offset;
+
+    private final int maxBufferedPages;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    private final Deque<List<T>> pages = new ArrayDeque<>();
+
+    // Offset of the last record of the latest page
+    private Long boundary;
+
+    // Value of at for the next page
+    private Long nextAt;
+
+    private boolean fetching;
+
+    private boolean exhausted;
+
+    private boolean closed;
+
+    private Throwable error;
+
+    private Iterator<T> current = Collections.emptyIterator();
+
+    private PageListener<T> listener;
+
+    private boolean delivering;
+
+    private boolean finished;
+
+    public static PageCursor<BitmarkRecord> bitmarks(
+            BitmarkApi api,
+            BitmarkQueryBuilder builder
+    ) {
+        return bitmarks(api, builder, DEFAULT_MAX_BUFFERED_PAGES);
+    }
+
+    public static PageCursor<BitmarkRecord> bitmarks(
+            BitmarkApi api,
+            BitmarkQueryBuilder builder,
+            int maxBufferedPages
+    ) {
+        return new PageCursor<>(
+                (params, callback) -> api.listBitmarks(
+                        params,
+                        map(callback, GetBitmarksResponse::getBitmarks)
+                ),
+                builder,
+                BitmarkRecord::getOffset,
+                maxBufferedPages
+        );
+    }
+
+    public static PageCursor<TransactionRecord> transactions(
+            BitmarkApi api,
+            TransactionQueryBuilder builder
+    ) {
+        return transactions(api, builder, DEFAULT_MAX_BUFFERED_PAGES);
+    }
+
+    public static PageCursor<TransactionRecord> transactions(
+            BitmarkApi api,
+            TransactionQueryBuilder builder,
+            int maxBufferedPages
+    ) {
+        return new PageCursor<>(
+                (params, callback) -> api.listTransactions(
+                        params,
+                        map(callback, GetTransactionsResponse::getTransactions)
+                ),
+                builder,
+                TransactionRecord::getOffset,
+                maxBufferedPages
+        );
+    }
+
+    public static PageCursor<AssetRecord> assets(
+            BitmarkApi api,
+            AssetQueryBuilder builder
+    ) {
+        return assets(api, builder, DEFAULT_MAX_BUFFERED_PAGES);
+    }
+
+    public static PageCursor<AssetRecord> assets(
+            BitmarkApi api,
+            AssetQueryBuilder builder,
+            int maxBufferedPages
+    ) {
+        return new PageCursor<>(
+                api::listAssets,
+                builder,
+                AssetRecord::getOffset,
+                maxBufferedPages
+        );
+    }
+
+    public PageCursor(
+            PageSource<T> source,
+            PageableQueryBuilder builder,
+            ToLongFunction<T> offset,
+            int maxBufferedPages
+    ) {
+        checkValid(
+                () -> source != null && builder != null && offset != null,
+                "Invalid page source"
+        );
+        checkValid(
+                () -> maxBufferedPages > 0,
+                "Max buffered pages must be greater than zero"
+        );
+        this.source = source;
+        this.builder = builder;
+        this.offset = offset;
+        this.maxBufferedPages = maxBufferedPages;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            List<T> page = nextPage();
+            if (page == null) {
+                return false;
+            }
+            current = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Block until the next page is available.
+     *
+     * @return the next page, never empty, or null if there are no more pages
+     * @throws CompletionException if fetching a page failed
+     */
+    public List<T> nextPage() {
+        List<T> page;
+        lock.lock();
+        try {
+            checkValid(() -> listener == null, "Cursor is subscribed");
+        } finally {
+            lock.unlock();
+        }
+        fetchIfNeeded();
+
+        lock.lock();
+        try {
+            while (pages.isEmpty()) {
+                if (error != null) {
+                    throw new CompletionException(error);
+                }
+                if (closed || (exhausted && !fetching)) {
+                    return null;
+                }
+                changed.await();
+            }
+            page = pages.poll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } finally {
+            lock.unlock();
+        }
+        fetchIfNeeded();
+        return page;
+    }
+
+    /**
+     * @return a sequential stream of the records, closing the stream closes
+     * the cursor
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        this,
+                        Spliterator.ORDERED | Spliterator.NONNULL
+                ),
+                false
+        ).onClose(this::close);
+    }
+
+    /**
+     * Deliver the pages to the listener without blocking the caller.
+     *
+     * @param listener receives the pages in order
+     */
+    public void subscribe(PageListener<T> listener) {
+        checkValid(() -> listener != null, "Listener is null");
+        lock.lock();
+        try {
+            checkValid(
+                    () -> this.listener == null,
+                    "Cursor is already subscribed"
+            );
+            this.listener = listener;
+        } finally {
+            lock.unlock();
+        }
+        fetchIfNeeded();
+        drain();
+    }
+
+    /**
+     * Stop fetching and drop the buffered pages. A page that is in flight is
+     * discarded when it arrives.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pages.clear();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    private void fetchIfNeeded() {
+        QueryParams params;
+        lock.lock();
+        try {
+            if (fetching || exhausted || closed || error != null
+                    || pages.size() >= maxBufferedPages) {
+                return;
+            }
+            fetching = true;
+            if (nextAt != null) {
+                builder.at(nextAt);
+            }
+            // Take a snapshot, the builder changes before the next fetch
+            final String query = builder.toUrlQuery();
+            params = () -> query;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            source.fetch(params, new Callback1<List<T>>() {
+                @Override
+                public void onSuccess(List<T> data) {
+                    onFetched(data, null);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    onFetched(null, throwable);
+                }
+            });
+        } catch (Throwable e) {
+            onFetched(null, e);
+        }
+    }
+
+    private void onFetched(List<T> page, Throwable throwable) {
+        lock.lock();
+        try {
+            fetching = false;
+            if (throwable != null) {
+                error = throwable;
+            } else if (!closed) {
+                append(page == null ? Collections.emptyList() : page);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        fetchIfNeeded();
+        drain();
+    }
+
+    private void append(List<T> page) {
+        // The record at the boundary offset can be returned again as the
+        // first record of the next page
+        List<T> records = new ArrayList<>(page.size());
+        for (T record : page) {
+            if (boundary == null || offset.applyAsLong(record) != boundary) {
+                records.add(record);
+            }
+        }
+        Integer limit = builder.getLimit();
+        if (limit == null || page.size() < limit) {
+            exhausted = true;
+        } else if (records.isEmpty()) {
+            // A full page of the boundary record only, step over it
+            nextAt = "earlier".equals(builder.getTo())
+                     ? boundary - 1
+                     : boundary + 1;
+            exhausted = nextAt <= 0;
+        } else {
+            boundary = offset.applyAsLong(records.get(records.size() - 1));
+            nextAt = boundary;
+        }
+        if (!records.isEmpty()) {
+            pages.add(records);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            PageListener<T> listener;
+            List<T> page;
+            Throwable failure = null;
+            lock.lock();
+            try {
+                listener = this.listener;
+                if (listener == null || delivering || finished) {
+                    return;
+                }
+                page = pages.poll();
+                if (page == null) {
+                    if (error != null) {
+                        failure = error;
+                    } else if (!closed && !(exhausted && !fetching)) {
+                        return;
+                    }
+                    finished = true;
+                } else {
+                    delivering = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (page == null) {
+                if (failure != null) {
+                    listener.onError(failure);
+                } else {
+                    listener.onComplete();
+                }
+                return;
+            }
+
+            fetchIfNeeded();
+            try {
+                listener.onPage(page);
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    closed = true;
+                    finished = true;
+                    pages.clear();
+                } finally {
+                    lock.unlock();
+                }
+                listener.onError(e);
+                return;
+            } finally {
+                lock.lock();
+                try {
+                    delivering = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private static <R, T> Callback1<R> map(
+            Callback1<List<T>> callback,
+            Function<R, List<T>> mapper
+    ) {
+        return new Callback1<R>() {
+            @Override
+            public void onSuccess(R data) {
+                callback.onSuccess(mapper.apply(data));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                callback.onError(throwable);
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.paging;
+
+import java.util.List;
+
+/**
+ * Receive pages of a {@link PageCursor} one at a time. The next page is not
+ * delivered before {@link #onPage(List)} returns.
+ */
+public interface PageListener<T> {
+
+    void onPage(List<T> page);
+
+    void onComplete();
+
+    void onError(Throwable throwable);
+}
@@ -0,0 +1,17 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.paging;
+
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.utils.callback.Callback1;
+
+import java.util.List;
+
+public interface PageSource<T> {
+
+    void fetch(QueryParams params, Callback1<List<T>> callback);
+}
@@ -6,10 +6,9 @@
  */
 package com.bitmark.apiservice.params;
 
-import com.bitmark.cryptography.crypto.Ed25519;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.key.KeyPair;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static com.bitmark.cryptography.utils.Validator.checkValid;
@@ -21,14 +20,16 @@ public abstract class AbsMultipleParams implements MultipleParams {
     @Override
     public List<byte[]> sign(KeyPair key) {
         checkValid(() -> key != null && key.isValid(), "Invalid key pair");
-        signatures = new ArrayList<>(size());
-        for (int i = 0; i < size(); i++) {
-            signatures.add(Ed25519.sign(pack(i), key.privateKey().toBytes()));
-        }
+        signatures = SigningPool.sign(
+                ParamsTimers.of(getClass()),
+                size(),
+                key,
+                this::pack
+        );
         return signatures;
     }
 
-    abstract byte[] pack(int index);
+    abstract void pack(int index, PackWriter writer);
 
     abstract int size();
 
@@ -6,6 +6,10 @@
  */
 package com.bitmark.apiservice.params;
 
+import com.bitmark.apiservice.tracing.Phase;
+import com.bitmark.apiservice.tracing.Span;
+import com.bitmark.apiservice.tracing.Tracing;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Ed25519;
 import com.bitmark.cryptography.crypto.key.Ed25519KeyPair;
 import com.bitmark.cryptography.crypto.key.KeyPair;
@@ -23,10 +27,24 @@ public abstract class AbsSingleParams implements SingleParams {
                 () -> key instanceof Ed25519KeyPair && key.isValid(),
                 "Invalid key pair"
         );
-        return signature = Ed25519.sign(pack(), key.privateKey().toBytes());
+        ParamsTimers timers = ParamsTimers.of(getClass());
+        long start = System.nanoTime();
+        Span span = Tracing.begin(Phase.PACK, timers.name);
+        PackWriter writer = PackWriter.local();
+        pack(writer);
+        span.end(writer.size());
+        start = timers.recordPack(start);
+        span = Tracing.begin(Phase.SIGN, timers.name);
+        signature = Ed25519.sign(
+                writer.toByteArray(),
+                key.privateKey().toBytes()
+        );
+        span.end(writer.size());
+        timers.recordSign(start);
+        return signature;
     }
 
-    abstract byte[] pack();
+    abstract void pack(PackWriter writer);
 
     public String getSignature() {
         return HEX.encode(signature);
@@ -7,12 +7,10 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.apiservice.utils.annotation.VisibleForTesting;
 import com.bitmark.apiservice.utils.record.ShareGrantRecord;
 import com.bitmark.cryptography.crypto.Ed25519;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
 
 import java.util.Calendar;
@@ -55,29 +53,14 @@ public class GrantResponseParams extends AbsSingleParams {
     }
 
     @Override
-    byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x09);
-        data = BinaryPacking.concat(
-                HEX.decode(shareGrantRecord.getShareId()),
-                data
-        );
-        data = ArrayUtil.concat(
-                data,
-                VarInt.writeUnsignedVarInt(shareGrantRecord.getQuantity())
-        );
-        data = BinaryPacking.concat(Address.fromAccountNumber(shareGrantRecord.getOwner())
-                .pack(), data);
-        data = BinaryPacking.concat(Address.fromAccountNumber(shareGrantRecord.getReceiver())
-                .pack(), data);
-        data = ArrayUtil.concat(
-                data,
-                VarInt.writeUnsignedVarInt(shareGrantRecord.getBeforeBlock())
-        );
-        data = BinaryPacking.concat(
-                HEX.decode(shareGrantRecord.getSignature()),
-                data
-        );
-        return data;
+    void pack(PackWriter writer) {
+        writer.writeVarInt(0x09)
+                .writeLengthPrefixedHex(shareGrantRecord.getShareId())
+                .writeVarInt(shareGrantRecord.getQuantity())
+                .writeAddress(Address.fromAccountNumber(shareGrantRecord.getOwner()))
+                .writeAddress(Address.fromAccountNumber(shareGrantRecord.getReceiver()))
+                .writeVarInt(shareGrantRecord.getBeforeBlock())
+                .writeLengthPrefixedHex(shareGrantRecord.getSignature());
     }
 
     @Override
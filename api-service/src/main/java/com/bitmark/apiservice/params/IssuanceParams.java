@@ -8,18 +8,18 @@ package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
 import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.apiservice.utils.Pair;
 import com.bitmark.apiservice.utils.error.UnexpectedException;
 import com.bitmark.cryptography.crypto.Ed25519;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.Buffer;
+import okio.BufferedSink;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
 import static com.bitmark.apiservice.utils.ArrayUtil.concat;
-import static com.bitmark.cryptography.crypto.Random.secureRandomInts;
 import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
 import static com.bitmark.cryptography.utils.Validator.checkValid;
 import static com.bitmark.cryptography.utils.Validator.checkValidHex;
@@ -28,6 +28,11 @@ public class IssuanceParams extends AbsMultipleParams {
 
     private static final int ASSET_ID_LENGTH = 64;
 
+    private static final byte[] HEX_DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7',
+            '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
     private String assetId;
 
     private Address issuer;
@@ -37,9 +42,13 @@ public class IssuanceParams extends AbsMultipleParams {
     // Hold the nonces for both case of issuance : contains and not contains genesis Bitmark
     private Pair<int[], int[]> noncesPair;
 
-    // Hold the nonces for both case of issuance : contains and not contains genesis Bitmark
+    // Hold the signatures for both case of issuance : contains and not contains genesis Bitmark.
+    // With lazy signing, a case is null until it is needed
     private Pair<List<byte[]>, List<byte[]>> signaturePair;
 
+    // Key to sign the needed case with, set by lazy signing
+    private KeyPair signingKey;
+
     public IssuanceParams(String assetId, Address owner) {
         this(assetId, owner, 1);
     }
@@ -54,17 +63,43 @@ public class IssuanceParams extends AbsMultipleParams {
         checkValid(() -> quantity > 0, "quantity must be greater than zero");
         this.assetId = assetId;
         this.issuer = issuer;
-        generateNonces(quantity);
+        setNonces(new NonceGenerator(quantity).next(quantity));
+    }
+
+    /**
+     * Issue one bitmark per given nonce. The nonces of the issuances of an
+     * asset must never be repeated, a {@link NonceGenerator} shared by all
+     * of them ensures it.
+     *
+     * @param nonces positive and unique nonces. With the genesis bitmark,
+     *               the first one is replaced by zero.
+     */
+    public IssuanceParams(String assetId, Address issuer, int[] nonces) {
+        checkValidHex(assetId);
+        checkValid(
+                () -> HEX.decode(assetId).length <= ASSET_ID_LENGTH,
+                "invalid asset id"
+        );
+        checkValid(() -> issuer != null, "invalid issuer");
+        checkValid(
+                () -> nonces != null && nonces.length > 0,
+                "quantity must be greater than zero"
+        );
+        checkValid(
+                () -> ArrayUtil.isPositive(nonces)
+                      && !ArrayUtil.contains(nonces, 0)
+                      && !ArrayUtil.isDuplicate(nonces),
+                "nonces must be positive and unique"
+        );
+        this.assetId = assetId;
+        this.issuer = issuer;
+        setNonces(ArrayUtil.clone(nonces));
     }
 
-    private void generateNonces(int quantity) {
-        final int[] genesisNonces = quantity == 1
-                                    ? new int[]{0}
-                                    : concat(
-                                            new int[]{0},
-                                            secureRandomInts(quantity - 1)
-                                    );
-        final int[] nonGenesisNonces = secureRandomInts(quantity);
+    private void setNonces(int[] nonGenesisNonces) {
+        // The genesis bitmark takes the place of the first bitmark
+        final int[] genesisNonces = ArrayUtil.clone(nonGenesisNonces);
+        genesisNonces[0] = 0;
         checkNonces(genesisNonces);
         checkNonces(nonGenesisNonces);
         noncesPair = new Pair<>(genesisNonces, nonGenesisNonces);
@@ -94,8 +129,16 @@ public class IssuanceParams extends AbsMultipleParams {
         this.containsGenesisBitmark = containsGenesisBitmark;
     }
 
+    /**
+     * Sign both cases of the issuance, with and without the genesis
+     * bitmark, since the API service only knows which one is needed when
+     * it sends the params.
+     *
+     * @see #signLazily(KeyPair)
+     */
     @Override
-    public List<byte[]> sign(KeyPair key) {
+    public synchronized List<byte[]> sign(KeyPair key) {
+        signingKey = null;
         List<byte[]> containGenesisBitmarkSig = sign(key, true);
         List<byte[]> notContainsGenesisBitmarkSig = sign(key, false);
         signaturePair = new Pair<>(
@@ -105,48 +148,90 @@ public class IssuanceParams extends AbsMultipleParams {
         return concat(containGenesisBitmarkSig, notContainsGenesisBitmarkSig);
     }
 
+    /**
+     * Keep the key and sign only the case that is sent, once it is known
+     * whether the issuance contains the genesis bitmark. It halves the
+     * signing work, the key is held by the params until then.
+     */
+    public synchronized void signLazily(KeyPair key) {
+        checkValid(() -> key != null && key.isValid(), "Invalid key pair");
+        signingKey = key;
+        signaturePair = null;
+    }
+
     @Override
     public String toJson() {
+        Buffer buffer = new Buffer();
+        try {
+            writeJson(buffer);
+        } catch (IOException e) {
+            throw new UnexpectedException(e);
+        }
+        return buffer.readUtf8();
+    }
+
+    @Override
+    public void writeJson(BufferedSink sink) throws IOException {
         checkContainsGenesisBitmarkExisted();
         checkSigned();
-        final StringBuilder builder = new StringBuilder();
-        builder.append("{\"issues\":[");
+        // The same for every item, so encoded once
+        final String owner = issuer.getAddress();
+        final List<byte[]> signatures = getSignatures(containsGenesisBitmark);
+        final int[] nonces = getNonces(containsGenesisBitmark);
+        final byte[] hex = new byte[Ed25519.SIG_LENGTH * 2];
+        sink.writeUtf8("{\"issues\":[");
         for (int i = 0, size = size(); i < size; i++) {
-            builder.append(buildSingleJson(i));
-            if (i < size - 1) {
-                builder.append(",");
+            if (i > 0) {
+                sink.writeByte(',');
             }
+            sink.writeUtf8("{\"owner\":\"")
+                    .writeUtf8(owner)
+                    .writeUtf8("\",\"signature\":\"");
+            writeHex(sink, signatures.get(i), hex);
+            sink.writeUtf8("\",\"asset_id\":\"")
+                    .writeUtf8(assetId)
+                    .writeUtf8("\",\"nonce\":")
+                    .writeDecimalLong(nonces[i])
+                    .writeByte('}');
         }
-        builder.append("]}");
-        return builder.toString();
+        sink.writeUtf8("]}");
     }
 
-    private List<byte[]> sign(KeyPair key, boolean containsGenesisBitmark) {
-        checkValid(() -> key != null && key.isValid(), "Invalid key pair");
-        List<byte[]> signatures = new ArrayList<>(size());
-        for (int i = 0; i < size(); i++) {
-            signatures.add(Ed25519.sign(
-                    pack(i, containsGenesisBitmark),
-                    key.privateKey().toBytes()
-            ));
+    private static void writeHex(BufferedSink sink, byte[] data, byte[] scratch)
+            throws IOException {
+        byte[] out = scratch.length >= data.length * 2
+                     ? scratch
+                     : new byte[data.length * 2];
+        for (int i = 0, j = 0; i < data.length; i++) {
+            out[j++] = HEX_DIGITS[(data[i] >> 4) & 0x0F];
+            out[j++] = HEX_DIGITS[data[i] & 0x0F];
         }
-        return signatures;
+        sink.write(out, 0, data.length * 2);
     }
 
-    private byte[] pack(int index, boolean containsGenesisBitmark) {
-        final byte[] assetId = HEX.decode(this.assetId);
-        byte[] data = VarInt.writeUnsignedVarInt(0x03);
-        data = BinaryPacking.concat(assetId, data);
-        data = BinaryPacking.concat(issuer.pack(), data);
-        data = concat(
-                data,
-                VarInt.writeUnsignedVarInt(getNonces(containsGenesisBitmark)[index])
+    private List<byte[]> sign(KeyPair key, boolean containsGenesisBitmark) {
+        checkValid(() -> key != null && key.isValid(), "Invalid key pair");
+        return SigningPool.sign(
+                ParamsTimers.of(IssuanceParams.class),
+                size(),
+                key,
+                (index, writer) -> pack(index, containsGenesisBitmark, writer)
         );
-        return data;
+    }
+
+    private void pack(
+            int index,
+            boolean containsGenesisBitmark,
+            PackWriter writer
+    ) {
+        writer.writeVarInt(0x03)
+                .writeLengthPrefixedHex(assetId)
+                .writeAddress(issuer)
+                .writeVarInt(getNonces(containsGenesisBitmark)[index]);
     }
 
     @Override
-    byte[] pack(int index) {
+    void pack(int index, PackWriter writer) {
         throw new UnsupportedOperationException("Do not support this function");
     }
 
@@ -163,20 +248,21 @@ public class IssuanceParams extends AbsMultipleParams {
     }
 
     @Override
-    public boolean isSigned() {
-        return signaturePair != null;
+    public synchronized boolean isSigned() {
+        return signaturePair != null || signingKey != null;
     }
 
-    private String buildSingleJson(int index) {
-        return "{\"owner\":\"" + issuer.getAddress() + "\",\"signature\":\"" + HEX
-                .encode(getSignatures(containsGenesisBitmark).get(index)) + "\"," + "\"asset_id\":\"" + assetId + "\",\"nonce\":" + getNonces(
-                containsGenesisBitmark)[index] + "}";
-    }
-
-    private List<byte[]> getSignatures(boolean containsGenesisBitmark) {
-        return containsGenesisBitmark
-               ? signaturePair.first()
-               : signaturePair.second();
+    private synchronized List<byte[]> getSignatures(boolean containsGenesisBitmark) {
+        List<byte[]> first = signaturePair == null ? null : signaturePair.first();
+        List<byte[]> second = signaturePair == null ? null : signaturePair.second();
+        List<byte[]> signatures = containsGenesisBitmark ? first : second;
+        if (signatures == null && signingKey != null) {
+            signatures = sign(signingKey, containsGenesisBitmark);
+            signaturePair = containsGenesisBitmark
+                            ? new Pair<>(signatures, second)
+                            : new Pair<>(first, signatures);
+        }
+        return signatures;
     }
 
     private int[] getNonces(boolean containsGenesisBitmark) {
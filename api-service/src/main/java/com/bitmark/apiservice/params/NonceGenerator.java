@@ -0,0 +1,52 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.params;
+
+import com.bitmark.apiservice.utils.IntHashSet;
+
+import java.security.SecureRandom;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Generates random issuance nonces that are never repeated by the same
+ * generator, so that the issuances of one asset made with it never get
+ * the same bitmark id. The nonces are positive, zero being the nonce of the
+ * genesis bitmark.
+ * <p>
+ * Not thread-safe.
+ */
+public final class NonceGenerator {
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final IntHashSet used;
+
+    public NonceGenerator() {
+        this(16);
+    }
+
+    /**
+     * @param expectedCount total number of nonces expected to be generated
+     */
+    public NonceGenerator(int expectedCount) {
+        used = new IntHashSet(expectedCount);
+    }
+
+    public int[] next(int count) {
+        checkValid(() -> count >= 0, "count must not be negative");
+        final int[] nonces = new int[count];
+        for (int i = 0; i < count; i++) {
+            int nonce;
+            do {
+                nonce = random.nextInt() & Integer.MAX_VALUE;
+            } while (nonce == 0 || !used.add(nonce));
+            nonces[i] = nonce;
+        }
+        return nonces;
+    }
+}
@@ -6,9 +6,22 @@
  */
 package com.bitmark.apiservice.params;
 
+import okio.BufferedSink;
+
+import java.io.IOException;
+
 public interface Params {
 
     String toJson();
 
+    /**
+     * Write the same JSON as {@link #toJson()} to the sink. Params with a
+     * large body override it to write their fields one by one instead of
+     * building the whole String first.
+     */
+    default void writeJson(BufferedSink sink) throws IOException {
+        sink.writeUtf8(toJson());
+    }
+
     boolean isSigned();
 }
@@ -0,0 +1,58 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.params;
+
+import com.bitmark.apiservice.metrics.Histogram;
+import com.bitmark.apiservice.metrics.MetricsRegistry;
+
+/**
+ * The pack and sign timers of a params class, e.g TransferParams.pack and
+ * TransferParams.sign. They are looked up once per class, so timing an
+ * item neither builds their names nor looks them up again.
+ */
+final class ParamsTimers {
+
+    private static final ClassValue<ParamsTimers> TIMERS =
+            new ClassValue<ParamsTimers>() {
+                @Override
+                protected ParamsTimers computeValue(Class<?> type) {
+                    return new ParamsTimers(type.getSimpleName());
+                }
+            };
+
+    final String name;
+
+    private final Histogram pack;
+
+    private final Histogram sign;
+
+    private ParamsTimers(String name) {
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        this.name = name;
+        this.pack = metrics.timer(name + ".pack");
+        this.sign = metrics.timer(name + ".sign");
+    }
+
+    static ParamsTimers of(Class<?> type) {
+        return TIMERS.get(type);
+    }
+
+    /**
+     * @param start value of {@link System#nanoTime()} when packing started
+     * @return the current value of {@link System#nanoTime()}, to time the
+     * signing
+     */
+    long recordPack(long start) {
+        long now = System.nanoTime();
+        pack.record(now - start);
+        return now;
+    }
+
+    void recordSign(long start) {
+        sign.record(System.nanoTime() - start);
+    }
+}
@@ -7,6 +7,7 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.key.KeyPair;
 
 import java.nio.charset.Charset;
@@ -27,7 +28,7 @@ public class RegisterWsTokenParams extends AbsSingleParams {
     }
 
     @Override
-    byte[] pack() {
+    void pack(PackWriter writer) {
         timestamp = Calendar.getInstance().getTimeInMillis();
         final String signableMessage = String.format(
                 Locale.getDefault(),
@@ -35,7 +36,7 @@ public class RegisterWsTokenParams extends AbsSingleParams {
                 requester.getAddress(),
                 timestamp
         );
-        return signableMessage.getBytes(Charset.forName("UTF-8"));
+        writer.writeBytes(signableMessage.getBytes(Charset.forName("UTF-8")));
     }
 
     @Override
@@ -8,10 +8,9 @@ package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.configuration.GlobalConfiguration;
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.BinaryPacking;
 import com.bitmark.apiservice.utils.FileUtils;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3512;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
 
 import java.io.File;
@@ -145,12 +144,11 @@ public class RegistrationParams extends AbsSingleParams {
     }
 
     @Override
-    byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x02);
-        data = BinaryPacking.concat(name, data);
-        data = BinaryPacking.concat(fingerprint, data);
-        data = BinaryPacking.concat(getPackedMetadata(metadata), data);
-        data = BinaryPacking.concat(registrant.pack(), data);
-        return data;
+    void pack(PackWriter writer) {
+        writer.writeVarInt(0x02)
+                .writeLengthPrefixed(name)
+                .writeLengthPrefixed(fingerprint)
+                .writeLengthPrefixed(getPackedMetadata(metadata))
+                .writeAddress(registrant);
     }
 }
@@ -7,10 +7,8 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3256;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 
 import java.util.Map;
 
@@ -106,14 +104,13 @@ public class ShareGrantingParams extends AbsSingleParams {
     }
 
     @Override
-    byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x09);
-        data = BinaryPacking.concat(HEX.decode(shareId), data);
-        data = ArrayUtil.concat(data, VarInt.writeUnsignedVarInt(quantity));
-        data = BinaryPacking.concat(owner.pack(), data);
-        data = BinaryPacking.concat(receiver.pack(), data);
-        data = ArrayUtil.concat(data, VarInt.writeUnsignedVarInt(beforeBlock));
-        return data;
+    void pack(PackWriter writer) {
+        writer.writeVarInt(0x09)
+                .writeLengthPrefixedHex(shareId)
+                .writeVarInt(quantity)
+                .writeAddress(owner)
+                .writeAddress(receiver)
+                .writeVarInt(beforeBlock);
     }
 
     @Override
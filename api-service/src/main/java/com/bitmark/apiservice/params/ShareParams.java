@@ -6,10 +6,8 @@
  */
 package com.bitmark.apiservice.params;
 
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3256;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
 
 import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
@@ -60,11 +58,10 @@ public class ShareParams extends AbsSingleParams {
     }
 
     @Override
-    byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x08);
-        data = BinaryPacking.concat(HEX.decode(link), data);
-        data = ArrayUtil.concat(data, VarInt.writeUnsignedVarInt(quantity));
-        return data;
+    void pack(PackWriter writer) {
+        writer.writeVarInt(0x08)
+                .writeLengthPrefixedHex(link)
+                .writeVarInt(quantity);
     }
 
     @Override
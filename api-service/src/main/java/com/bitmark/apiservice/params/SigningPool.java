@@ -0,0 +1,135 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.params;
+
+import com.bitmark.apiservice.tracing.Phase;
+import com.bitmark.apiservice.tracing.Span;
+import com.bitmark.apiservice.tracing.Tracing;
+import com.bitmark.apiservice.utils.PackWriter;
+import com.bitmark.cryptography.crypto.Ed25519;
+import com.bitmark.cryptography.crypto.key.KeyPair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Signs the items of the params with many of them, e.g an issuance of many
+ * editions, split across a {@link ForkJoinPool}. The signatures are
+ * returned in the order of the items whatever the thread that made them.
+ */
+public final class SigningPool {
+
+    // Items signed by a task before it is split again. Fewer items are
+    // signed on the calling thread.
+    private static final int BATCH_SIZE = 16;
+
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private SigningPool() {
+    }
+
+    /**
+     * @param pool the pool to sign on from now on, null to sign on the
+     *             calling thread
+     */
+    public static void setPool(ForkJoinPool pool) {
+        SigningPool.pool = pool;
+    }
+
+    public static ForkJoinPool getPool() {
+        return pool;
+    }
+
+    interface Packer {
+
+        void pack(int index, PackWriter writer);
+    }
+
+    static List<byte[]> sign(
+            ParamsTimers timers,
+            int size,
+            KeyPair key,
+            Packer packer
+    ) {
+        final byte[][] signatures = new byte[size][];
+        SignTask task = new SignTask(
+                timers,
+                key,
+                packer,
+                signatures,
+                0,
+                size
+        );
+        ForkJoinPool current = pool;
+        if (current == null || size <= BATCH_SIZE) {
+            task.compute();
+        } else {
+            current.invoke(task);
+        }
+        return new ArrayList<>(Arrays.asList(signatures));
+    }
+
+    private static final class SignTask extends RecursiveAction {
+
+        private final ParamsTimers timers;
+
+        private final KeyPair key;
+
+        private final Packer packer;
+
+        private final byte[][] signatures;
+
+        private final int from;
+
+        private final int to;
+
+        private SignTask(
+                ParamsTimers timers,
+                KeyPair key,
+                Packer packer,
+                byte[][] signatures,
+                int from,
+                int to
+        ) {
+            this.timers = timers;
+            this.key = key;
+            this.packer = packer;
+            this.signatures = signatures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_SIZE && pool != null) {
+                int middle = (from + to) >>> 1;
+                invokeAll(part(from, middle), part(middle, to));
+                return;
+            }
+            byte[] privateKey = key.privateKey().toBytes();
+            PackWriter writer = PackWriter.local();
+            for (int i = from; i < to; i++) {
+                long start = System.nanoTime();
+                Span span = Tracing.begin(Phase.PACK, timers.name);
+                packer.pack(i, writer.reset());
+                span.end(writer.size());
+                start = timers.recordPack(start);
+                span = Tracing.begin(Phase.SIGN, timers.name);
+                signatures[i] = Ed25519.sign(writer.toByteArray(), privateKey);
+                span.end(writer.size());
+                timers.recordSign(start);
+            }
+        }
+
+        private SignTask part(int from, int to) {
+            return new SignTask(timers, key, packer, signatures, from, to);
+        }
+    }
+}
@@ -7,10 +7,8 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3256;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
 
 import java.util.Map;
@@ -73,12 +71,11 @@ public class TransferOfferParams extends AbsSingleParams {
     }
 
     @Override
-    byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x05);
-        data = BinaryPacking.concat(HEX.decode(link), data);
-        data = ArrayUtil.concat(data, new byte[]{0x00});
-        data = BinaryPacking.concat(receiver.pack(), data);
-        return data;
+    void pack(PackWriter writer) {
+        writer.writeVarInt(0x05)
+                .writeLengthPrefixedHex(link)
+                .writeByte(0x00)
+                .writeAddress(receiver);
     }
 
     private void checkValidLink(String link) {
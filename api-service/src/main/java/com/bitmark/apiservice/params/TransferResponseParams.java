@@ -7,12 +7,10 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.apiservice.utils.annotation.VisibleForTesting;
 import com.bitmark.apiservice.utils.record.OfferRecord;
 import com.bitmark.cryptography.crypto.Ed25519;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
 
 import java.util.Calendar;
@@ -62,14 +60,12 @@ public class TransferResponseParams extends AbsSingleParams {
     }
 
     @Override
-    byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x05);
-        data = BinaryPacking.concat(HEX.decode(offer.getLink()), data);
-        data = ArrayUtil.concat(data, new byte[]{0x00});
-        data = BinaryPacking.concat(Address.fromAccountNumber(offer.getOwner())
-                .pack(), data);
-        data = BinaryPacking.concat(HEX.decode(offer.getSignature()), data);
-        return data;
+    void pack(PackWriter writer) {
+        writer.writeVarInt(0x05)
+                .writeLengthPrefixedHex(offer.getLink())
+                .writeByte(0x00)
+                .writeAddress(Address.fromAccountNumber(offer.getOwner()))
+                .writeLengthPrefixedHex(offer.getSignature());
     }
 
     @Override
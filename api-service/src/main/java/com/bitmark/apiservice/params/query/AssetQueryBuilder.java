@@ -10,7 +10,8 @@ import com.google.gson.annotations.SerializedName;
 
 import static com.bitmark.cryptography.utils.Validator.*;
 
-public class AssetQueryBuilder extends AbsQueryBuilder {
+public class AssetQueryBuilder extends AbsQueryBuilder
+        implements PageableQueryBuilder {
 
     private String registrant;
 
@@ -73,4 +74,19 @@ public class AssetQueryBuilder extends AbsQueryBuilder {
         this.to = to;
         return this;
     }
+
+    @Override
+    public Long getAt() {
+        return at;
+    }
+
+    @Override
+    public String getTo() {
+        return to;
+    }
+
+    @Override
+    public Integer getLimit() {
+        return limit;
+    }
 }
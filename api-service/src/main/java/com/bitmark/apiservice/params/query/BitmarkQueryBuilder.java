@@ -10,7 +10,8 @@ import com.google.gson.annotations.SerializedName;
 
 import static com.bitmark.cryptography.utils.Validator.*;
 
-public class BitmarkQueryBuilder extends AbsQueryBuilder {
+public class BitmarkQueryBuilder extends AbsQueryBuilder
+        implements PageableQueryBuilder {
 
     private String owner;
 
@@ -128,4 +129,19 @@ public class BitmarkQueryBuilder extends AbsQueryBuilder {
         this.to = to;
         return this;
     }
+
+    @Override
+    public Long getAt() {
+        return at;
+    }
+
+    @Override
+    public String getTo() {
+        return to;
+    }
+
+    @Override
+    public Integer getLimit() {
+        return limit;
+    }
 }
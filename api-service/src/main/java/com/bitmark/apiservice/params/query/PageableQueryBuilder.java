@@ -0,0 +1,21 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.params.query;
+
+/**
+ * A query that pages through records by their offset.
+ */
+public interface PageableQueryBuilder extends QueryBuilder {
+
+    PageableQueryBuilder at(Long at);
+
+    Long getAt();
+
+    String getTo();
+
+    Integer getLimit();
+}
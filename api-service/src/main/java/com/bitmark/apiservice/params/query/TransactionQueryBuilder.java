@@ -10,7 +10,8 @@ import com.google.gson.annotations.SerializedName;
 
 import static com.bitmark.cryptography.utils.Validator.*;
 
-public class TransactionQueryBuilder extends AbsQueryBuilder {
+public class TransactionQueryBuilder extends AbsQueryBuilder
+        implements PageableQueryBuilder {
 
     private String owner;
 
@@ -118,4 +119,19 @@ public class TransactionQueryBuilder extends AbsQueryBuilder {
         this.loadBlock = loadBlock;
         return this;
     }
+
+    @Override
+    public Long getAt() {
+        return at;
+    }
+
+    @Override
+    public String getTo() {
+        return to;
+    }
+
+    @Override
+    public Integer getLimit() {
+        return limit;
+    }
 }
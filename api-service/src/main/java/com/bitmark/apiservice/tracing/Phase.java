@@ -0,0 +1,31 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.tracing;
+
+public enum Phase {
+
+    // Packing the params into the binary message to sign
+    PACK,
+
+    // Signing the packed message
+    SIGN,
+
+    // Writing the params as the JSON request body
+    SERIALIZE,
+
+    // Waiting for admission, a rate limit token or a concurrency slot
+    ENQUEUE,
+
+    // Sending the request until the response headers are received
+    NETWORK,
+
+    // Decoding the response body
+    DECODE,
+
+    // Running the callback of the caller, including decoding
+    CALLBACK
+}
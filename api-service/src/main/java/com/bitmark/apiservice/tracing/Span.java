@@ -0,0 +1,22 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.tracing;
+
+/**
+ * A phase that has begun. It may end on another thread than the one it
+ * began on, e.g the network phase.
+ */
+public interface Span {
+
+    Span NOOP = size -> {
+    };
+
+    /**
+     * @param size bytes processed by the phase, negative if it is unknown
+     */
+    void end(long size);
+}
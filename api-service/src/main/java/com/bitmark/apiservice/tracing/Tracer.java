@@ -0,0 +1,46 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.tracing;
+
+/**
+ * Receives the phases of the SDK operations, e.g to emit them as Java Flight
+ * Recorder events on Java 11 and later:
+ *
+ * <pre>
+ * class SdkEvent extends jdk.jfr.Event implements Span {
+ *     String phase;
+ *     String name;
+ *     long size;
+ *
+ *     public void end(long size) {
+ *         this.size = size;
+ *         commit();
+ *     }
+ * }
+ *
+ * Tracing.setTracer((phase, name) -&gt; {
+ *     SdkEvent event = new SdkEvent();
+ *     if (!event.isEnabled()) {
+ *         return Span.NOOP;
+ *     }
+ *     event.phase = phase.name();
+ *     event.name = name;
+ *     event.begin();
+ *     return event;
+ * });
+ * </pre>
+ */
+public interface Tracer {
+
+    /**
+     * @param phase the phase that begins
+     * @param name  the endpoint, e.g POST /v3/transfer, or the params class
+     *              for signing and packing
+     * @return the span to end when the phase ends
+     */
+    Span begin(Phase phase, String name);
+}
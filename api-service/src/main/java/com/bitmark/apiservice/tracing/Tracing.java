@@ -0,0 +1,40 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.tracing;
+
+/**
+ * Entry point of the SDK to its {@link Tracer}. Tracing is disabled until a
+ * tracer is set and then only costs a volatile read per phase.
+ */
+public final class Tracing {
+
+    private static volatile Tracer tracer;
+
+    private Tracing() {
+    }
+
+    /**
+     * @param tracer the tracer to receive the phases from now on, null to
+     *               disable tracing
+     */
+    public static void setTracer(Tracer tracer) {
+        Tracing.tracer = tracer;
+    }
+
+    /**
+     * @return true if a tracer is set. Callers check it before building an
+     * expensive name.
+     */
+    public static boolean isEnabled() {
+        return tracer != null;
+    }
+
+    public static Span begin(Phase phase, String name) {
+        Tracer current = tracer;
+        return current == null ? Span.NOOP : current.begin(phase, name);
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.apiservice.configuration.ConcurrencyLimitPolicy;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD concurrency limiter. Tasks over the limit are queued without
+ * blocking and started when a task in flight releases its slot.
+ */
+public class AdaptiveLimiter {
+
+    // The lowest latency is forgotten after this many samples so that the
+    // limiter follows a change of the baseline
+    private static final int MIN_RTT_WINDOW = 1000;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final double latencyTolerance;
+
+    private final int maxQueued;
+
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder queuedCount = new LongAdder();
+
+    private double limit;
+
+    private int inFlight;
+
+    private long minRtt = Long.MAX_VALUE;
+
+    private int samples;
+
+    public AdaptiveLimiter(ConcurrencyLimitPolicy policy, int maxLimit) {
+        this.minLimit = policy.getMinLimit();
+        this.maxLimit = Math.max(minLimit, maxLimit);
+        this.backoffRatio = policy.getBackoffRatio();
+        this.latencyTolerance = policy.getLatencyTolerance();
+        this.maxQueued = policy.getMaxQueued();
+        this.limit = Math.min(this.maxLimit, policy.getInitialLimit());
+    }
+
+    /**
+     * Run the task now if the limit allows it, otherwise queue it.
+     *
+     * @return false if the queue is full and the task is rejected
+     */
+    public boolean acquire(Runnable task) {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                if (queue.size() >= maxQueued) {
+                    rejectedCount.increment();
+                    return false;
+                }
+                queue.add(task);
+                queuedCount.increment();
+                return true;
+            }
+            inFlight++;
+        }
+        task.run();
+        return true;
+    }
+
+    /**
+     * Release the slot of a task and start the queued tasks the new limit
+     * allows.
+     *
+     * @param rtt     round trip time of the task in nanoseconds
+     * @param dropped true if the task failed because the server is
+     *                overloaded or unreachable
+     */
+    public void release(long rtt, boolean dropped) {
+        Queue<Runnable> ready = new ArrayDeque<>();
+        synchronized (this) {
+            inFlight--;
+            if (++samples > MIN_RTT_WINDOW) {
+                samples = 0;
+                minRtt = Long.MAX_VALUE;
+            }
+            if (!dropped) {
+                minRtt = Math.min(minRtt, rtt);
+            }
+
+            if (dropped || rtt > minRtt * latencyTolerance) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlight + 1 >= (int) limit / 2) {
+                // Grow by one per round trip of a full window, only while
+                // the limit is actually used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+
+            while (!queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                ready.add(queue.poll());
+            }
+        }
+        for (Runnable task : ready) {
+            task.run();
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of tasks that had to wait in the queue
+     */
+    public long getQueuedCount() {
+        return queuedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -16,6 +16,9 @@ import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.PublicKey;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static com.bitmark.apiservice.configuration.KeyPart.PUBLIC_KEY;
 import static com.bitmark.cryptography.crypto.encoder.Base58.BASE_58;
@@ -25,11 +28,41 @@ public class Address {
 
     public static final int CHECKSUM_LENGTH = 4;
 
+    private static final int MAX_INTERNED = 1024;
+
+    // Addresses by account number, least recently used first, so that
+    // decoding a known account number does not check it again
+    private static final Map<String, Address> INTERNED = Collections.synchronizedMap(
+            new LinkedHashMap<String, Address>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, Address> eldest
+                ) {
+                    return size() > MAX_INTERNED;
+                }
+            });
+
     private PublicKey publicKey;
 
     private Network network;
 
+    // Computed once on first use
+    private volatile String address;
+
+    private volatile byte[] packed;
+
     public static Address fromAccountNumber(String accountNumber) {
+        final Address interned = accountNumber == null
+                                 ? null
+                                 : INTERNED.get(accountNumber);
+        if (interned != null) {
+            // The network may have been changed since it was decoded
+            if (GlobalConfiguration.network() != interned.network) {
+                throw new InvalidNetworkException(interned.network.value());
+            }
+            return interned;
+        }
+
         final byte[] addressBytes = BASE_58.decode(accountNumber);
         int keyVariant = VarInt.readUnsignedVarInt(addressBytes);
         final int keyVariantLength = ArrayUtil.toByteArray(keyVariant).length;
@@ -81,8 +114,10 @@ public class Address {
                 keyVariantLength,
                 addressLength - CHECKSUM_LENGTH
         );
-        return new Address(PublicKey.from(publicKey), network);
-
+        final Address address = new Address(PublicKey.from(publicKey), network);
+        address.address = accountNumber;
+        INTERNED.put(accountNumber, address);
+        return address;
     }
 
     public static boolean isValidAccountNumber(String accountNumber) {
@@ -116,7 +151,19 @@ public class Address {
     }
 
     public byte[] pack() {
-        return ArrayUtil.concat(getPrefix(), publicKey.toBytes());
+        return ArrayUtil.clone(packedBytes());
+    }
+
+    /**
+     * @return the packed address, not to be modified
+     */
+    byte[] packedBytes() {
+        byte[] bytes = packed;
+        if (bytes == null) {
+            bytes = ArrayUtil.concat(getPrefix(), publicKey.toBytes());
+            packed = bytes;
+        }
+        return bytes;
     }
 
     public Network getNetwork() {
@@ -128,29 +175,32 @@ public class Address {
     }
 
     public String getAddress() {
-        final byte[] keyVariantVarInt = getPrefix();
-        final byte[] publicKeyBytes = publicKey.toBytes();
-        final byte[] preChecksum = ArrayUtil.concat(
-                keyVariantVarInt,
-                publicKeyBytes
-        );
-        final byte[] checksum = ArrayUtil.slice(
-                Sha3256.hash(preChecksum),
-                0,
-                CHECKSUM_LENGTH
-        );
-        final byte[] address = ArrayUtil.concat(
-                keyVariantVarInt,
-                publicKeyBytes,
-                checksum
-        );
-        return BASE_58.encode(address);
+        String accountNumber = address;
+        if (accountNumber == null) {
+            final byte[] preChecksum = packedBytes();
+            final byte[] checksum = ArrayUtil.slice(
+                    Sha3256.hash(preChecksum),
+                    0,
+                    CHECKSUM_LENGTH
+            );
+            accountNumber = BASE_58.encode(ArrayUtil.concat(
+                    preChecksum,
+                    checksum
+            ));
+            address = accountNumber;
+            INTERNED.put(accountNumber, this);
+        }
+        return accountNumber;
     }
 
     public byte[] getPrefix() {
+        return VarInt.writeUnsignedVarInt(getKeyVariant());
+    }
+
+    private int getKeyVariant() {
         int keyVariantValue = 0x01 << 4;
         keyVariantValue |= PUBLIC_KEY.value();
         keyVariantValue |= (network.value() << 1);
-        return VarInt.writeUnsignedVarInt(keyVariantValue);
+        return keyVariantValue;
     }
 }
@@ -239,12 +239,10 @@ public class ArrayUtil {
     }
 
     public static boolean isDuplicate(int[] input) {
-        final List<Integer> nonDupArray = new ArrayList<>();
+        final IntHashSet nonDupSet = new IntHashSet(input.length);
         for (int item : input) {
-            if (nonDupArray.contains(item)) {
+            if (!nonDupSet.add(item)) {
                 return true;
-            } else {
-                nonDupArray.add(item);
             }
         }
         return false;
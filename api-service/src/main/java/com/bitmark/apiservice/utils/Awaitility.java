@@ -10,7 +10,10 @@ import com.bitmark.apiservice.utils.callback.Call;
 import com.bitmark.apiservice.utils.callback.Callable1;
 import com.bitmark.apiservice.utils.callback.Callback1;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Awaitility {
 
@@ -31,68 +34,95 @@ public class Awaitility {
      * @throws Throwable Error is thrown from task
      */
     public static <T> T await(Call<T> call) throws Throwable {
-        final Data<T> data = new Data<>();
-        final Data<Throwable> error = new Data<>();
+        return await(call, null);
+    }
+
+    /**
+     * Same as {@link #await(Call)} but wait for at most {@code timeout}
+     * milliseconds.
+     */
+    public static <T> T await(Call<T> call, Long timeout) throws Throwable {
+        final Result<T> result = new Result<>();
         EXECUTOR.execute(() -> {
             try {
-                data.setValue(call.call());
+                result.complete(call.call());
             } catch (Throwable throwable) {
-                error.setValue(throwable);
+                result.fail(throwable);
             }
         });
-
-        final long timeStart = System.currentTimeMillis();
-        while (data.getValue() == null && error.getValue() == null) {
-            long timeSpent = System.currentTimeMillis() - timeStart;
-            if (timeSpent >= TIMEOUT) {
-                throw new TimeoutException("Timeout after " + timeSpent + " ms");
-            }
-        }
-
-        T value = data.getValue();
-        if (value != null) {
-            return value;
-        } else {
-            throw error.getValue();
-        }
+        return result.get(timeout);
     }
 
     public static <T> T await(Callable1<T> callable) throws Throwable {
         return await(callable, null);
     }
 
+    /**
+     * Invoke the task and park the current thread until the callback is
+     * delivered. A {@code null} value is a valid result.
+     *
+     * @param callable The interface for invoke the task
+     * @param timeout  Maximum waiting time in milliseconds, the default
+     *                 timeout is used if it's null
+     * @param <T>      Type of data is return from task
+     * @return Value return from the task
+     * @throws TimeoutException     if the task is not finished in time
+     * @throws InterruptedException if the current thread is interrupted
+     *                              while waiting
+     * @throws Throwable            Error is thrown from task
+     */
     public static <T> T await(Callable1<T> callable, Long timeout)
             throws Throwable {
-        Data<T> data = new Data<>();
-        Data<Throwable> error = new Data<>();
-
+        final Result<T> result = new Result<>();
         callable.call(new Callback1<T>() {
             @Override
             public void onSuccess(T value) {
-                data.setValue(value);
+                result.complete(value);
             }
 
             @Override
             public void onError(Throwable throwable) {
-                error.setValue(throwable);
+                result.fail(throwable);
             }
         });
+        return result.get(timeout);
+    }
 
-        long timeStart = System.currentTimeMillis();
-        timeout = timeout == null ? TIMEOUT : timeout;
-        while (data.getValue() == null && error.getValue() == null) {
-            long timeSpent = System.currentTimeMillis() - timeStart;
-            if (timeSpent >= timeout) {
-                throw new TimeoutException("Timeout after " + timeSpent + " ms");
+    private static final class Result<T> {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        private volatile T value;
+
+        private volatile Throwable error;
+
+        void complete(T value) {
+            if (done.compareAndSet(false, true)) {
+                this.value = value;
+                latch.countDown();
             }
         }
 
-        T value = data.getValue();
-        if (value != null) {
-            return value;
-        } else {
-            throw error.getValue();
+        void fail(Throwable error) {
+            if (done.compareAndSet(false, true)) {
+                this.error = error;
+                latch.countDown();
+            }
         }
 
+        T get(Long timeout) throws Throwable {
+            final long timeoutMillis = timeout == null ? TIMEOUT : timeout;
+            final long timeStart = System.currentTimeMillis();
+            if (!latch.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                long timeSpent = System.currentTimeMillis() - timeStart;
+                throw new TimeoutException("Timeout after " + timeSpent + " ms");
+            }
+            if (error != null) {
+                throw error;
+            }
+            return value;
+        }
     }
 }
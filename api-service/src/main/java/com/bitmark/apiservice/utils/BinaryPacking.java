@@ -10,6 +10,11 @@ import com.bitmark.cryptography.crypto.encoder.VarInt;
 
 import static com.bitmark.cryptography.crypto.encoder.Raw.RAW;
 
+/**
+ * @deprecated copies the whole payload for every field, use
+ * {@link PackWriter} instead
+ */
+@Deprecated
 public class BinaryPacking {
 
     private BinaryPacking() {
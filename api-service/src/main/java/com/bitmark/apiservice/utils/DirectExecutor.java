@@ -0,0 +1,22 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs each task on the thread that submits it
+ */
+public enum DirectExecutor implements Executor {
+
+    INSTANCE;
+
+    @Override
+    public void execute(Runnable command) {
+        command.run();
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.apiservice.utils.callback.Callable1;
+import com.bitmark.apiservice.utils.callback.Callback1;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class FutureUtils {
+
+    private FutureUtils() {
+    }
+
+    /**
+     * Bridge a callback based task to a {@link CompletableFuture}. The
+     * future is completed from the thread that delivers the callback, no
+     * thread is blocked while waiting.
+     *
+     * @param callable The interface for invoke the task
+     * @param <T>      Type of data is return from task
+     * @return The future is completed with the task result
+     */
+    public static <T> CompletableFuture<T> toFuture(Callable1<T> callable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            callable.call(new Callback1<T>() {
+                @Override
+                public void onSuccess(T data) {
+                    future.complete(data);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                }
+            });
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Deliver the result of the future to the callback.
+     */
+    public static <T> void toCallback(
+            CompletableFuture<T> future,
+            Callback1<T> callback
+    ) {
+        future.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                callback.onError(unwrap(throwable));
+            } else {
+                callback.onSuccess(value);
+            }
+        });
+    }
+
+    /**
+     * @return the original error if it was wrapped by
+     * {@link CompletionException}
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException
+               && throwable.getCause() != null
+               ? throwable.getCause()
+               : throwable;
+    }
+}
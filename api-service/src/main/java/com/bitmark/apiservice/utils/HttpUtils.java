@@ -8,8 +8,10 @@ package com.bitmark.apiservice.utils;
 
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import okhttp3.Request;
 
 import java.lang.reflect.Type;
+import java.util.List;
 import java.util.Map;
 
 public class HttpUtils {
@@ -69,6 +71,22 @@ public class HttpUtils {
         return builder.toString();
     }
 
+    /**
+     * @return the method and the path of the request with the record id
+     * replaced, e.g GET /v3/bitmarks/{id}
+     */
+    public static String getEndpointName(Request request) {
+        List<String> segments = request.url().pathSegments();
+        StringBuilder builder = new StringBuilder(request.method()).append(' ');
+        for (int i = 0; i < Math.min(2, segments.size()); i++) {
+            builder.append('/').append(segments.get(i));
+        }
+        if (segments.size() > 2) {
+            builder.append("/{id}");
+        }
+        return builder.toString();
+    }
+
     public static <T> String mapToJson(Map<String, T> map) {
         if (map == null) {
             return "{}";
@@ -0,0 +1,118 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+/**
+ * Set of primitive ints with open addressing and linear probing. It holds
+ * a million values in a few megabytes, where a {@link java.util.HashSet}
+ * of boxed integers needs tens of them.
+ * <p>
+ * Not thread-safe.
+ */
+public final class IntHashSet {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // Marks an empty slot, so the zero value is tracked apart
+    private static final int EMPTY = 0;
+
+    private int[] slots;
+
+    private int size;
+
+    private boolean containsZero;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize number of values added without growing the set
+     */
+    public IntHashSet(int expectedSize) {
+        slots = new int[capacityFor(Math.max(expectedSize, 1))];
+    }
+
+    /**
+     * @return true if the value was not in the set yet
+     */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        if (++size > slots.length >> 1) {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        if (slots.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Set is full");
+        }
+        int[] old = slots;
+        slots = new int[old.length << 1];
+        int mask = slots.length - 1;
+        for (int value : old) {
+            if (value != EMPTY) {
+                int index = mix(value) & mask;
+                while (slots[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+
+    // Keep the load factor at most one half
+    private static int capacityFor(int expectedSize) {
+        if (expectedSize >= MAX_CAPACITY >> 1) {
+            return MAX_CAPACITY;
+        }
+        int capacity = Integer.highestOneBit(expectedSize) << 2;
+        return Math.max(capacity, 16);
+    }
+
+    // Spread sequential values over the slots
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
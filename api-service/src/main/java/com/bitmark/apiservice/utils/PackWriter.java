@@ -0,0 +1,222 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.cryptography.error.ValidateException;
+
+import java.util.Arrays;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+
+/**
+ * Growable buffer the params are packed into before they are signed. The
+ * fields are appended in place, so packing costs no allocation once the
+ * buffer is large enough, instead of copying the whole payload for every
+ * field.
+ * <p>
+ * A writer is not thread-safe, {@link #local()} gives each thread its own.
+ */
+public final class PackWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Larger buffers are not kept by the thread-local writers
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<PackWriter> LOCAL = ThreadLocal.withInitial(
+            PackWriter::new);
+
+    private byte[] buffer;
+
+    private int size;
+
+    /**
+     * @return the writer of the current thread, emptied
+     */
+    public static PackWriter local() {
+        return LOCAL.get().reset();
+    }
+
+    public PackWriter() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public PackWriter(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    public PackWriter reset() {
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        size = 0;
+        return this;
+    }
+
+    public PackWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+        return this;
+    }
+
+    public PackWriter writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    /**
+     * Write an unsigned varint, 7 bits per byte, least significant first
+     */
+    public PackWriter writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & 0xFFFFFF80) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) (value & 0x7F);
+        return this;
+    }
+
+    /**
+     * Write the bytes prefixed by their length as a varint
+     */
+    public PackWriter writeLengthPrefixed(byte[] bytes) {
+        return writeVarInt(bytes.length).writeBytes(bytes);
+    }
+
+    /**
+     * Write the UTF-8 bytes of the string prefixed by their length as a
+     * varint. Unpaired surrogates are written as '?', the same as
+     * {@link String#getBytes(java.nio.charset.Charset)}.
+     */
+    public PackWriter writeLengthPrefixed(String value) {
+        checkNonNull(value);
+        int length = utf8Length(value);
+        writeVarInt(length);
+        ensureCapacity(length);
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xC0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer[size++] = (byte) (0xE0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isSurrogatePair(value, i)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[size++] = '?';
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write the bytes of the hex string prefixed by their length as a
+     * varint. An odd number of digits is read with a leading zero.
+     */
+    public PackWriter writeLengthPrefixedHex(String hex) {
+        checkNonNull(hex);
+        int digits = hex.length();
+        int length = (digits + 1) >> 1;
+        writeVarInt(length);
+        ensureCapacity(length);
+        int i = 0;
+        if ((digits & 1) == 1) {
+            buffer[size++] = (byte) toDigit(hex.charAt(i++));
+        }
+        while (i < digits) {
+            int high = toDigit(hex.charAt(i++));
+            int low = toDigit(hex.charAt(i++));
+            buffer[size++] = (byte) ((high << 4) | low);
+        }
+        return this;
+    }
+
+    /**
+     * Write the packed address prefixed by its length as a varint
+     */
+    public PackWriter writeAddress(Address address) {
+        checkNonNull(address);
+        return writeLengthPrefixed(address.packedBytes());
+    }
+
+    /**
+     * @return number of bytes written
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the internal buffer, valid up to {@link #size()} and until
+     * the next write
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int length) {
+        int required = size + length;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(
+                    buffer,
+                    Math.max(required, buffer.length << 1)
+            );
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (!Character.isSurrogate(c)) {
+                length += 3;
+            } else if (isSurrogatePair(value, i)) {
+                length += 4;
+                i++;
+            } else {
+                length += 1;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index))
+               && index + 1 < value.length()
+               && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    private static int toDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        throw new ValidateException.InvalidHex();
+    }
+}
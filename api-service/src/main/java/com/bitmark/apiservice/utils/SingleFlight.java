@@ -0,0 +1,125 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.apiservice.utils.callback.Callable1;
+import com.bitmark.apiservice.utils.callback.Callback1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesce concurrent calls with the same key into one call. Callers that
+ * arrive while a call for their key is in flight are not executed, they
+ * receive the same result instance as the caller that started it.
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<String, Flight> flights =
+            new ConcurrentHashMap<>();
+
+    private final LongAdder executedCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    public <T> void execute(
+            String key,
+            Callable1<T> callable,
+            Callback1<T> callback
+    ) {
+        // Every caller of a key receives the same result type
+        @SuppressWarnings("unchecked")
+        Callback1<Object> registered = (Callback1<Object>) callback;
+        Flight[] started = new Flight[1];
+        flights.compute(key, (k, flight) -> {
+            if (flight == null) {
+                flight = new Flight();
+                started[0] = flight;
+            }
+            flight.callbacks.add(registered);
+            return flight;
+        });
+
+        Flight flight = started[0];
+        if (flight == null) {
+            coalescedCount.increment();
+            return;
+        }
+        executedCount.increment();
+        try {
+            callable.call(new Callback1<T>() {
+                @Override
+                public void onSuccess(T data) {
+                    complete(key, flight, data, null);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    complete(key, flight, null, throwable);
+                }
+            });
+        } catch (Throwable e) {
+            complete(key, flight, null, e);
+        }
+    }
+
+    /**
+     * @return number of calls that were actually executed
+     */
+    public long getExecutedCount() {
+        return executedCount.sum();
+    }
+
+    /**
+     * @return number of calls that were saved by joining a call in flight
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public int getInFlightCount() {
+        return flights.size();
+    }
+
+    private void complete(
+            String key,
+            Flight flight,
+            Object data,
+            Throwable throwable
+    ) {
+        // Callbacks are only added inside compute, once the flight is
+        // removed the list can no longer change
+        if (!flights.remove(key, flight)) {
+            return;
+        }
+        RuntimeException failure = null;
+        for (Callback1<Object> callback : flight.callbacks) {
+            try {
+                if (throwable == null) {
+                    callback.onSuccess(data);
+                } else {
+                    callback.onError(throwable);
+                }
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static final class Flight {
+
+        private final List<Callback1<Object>> callbacks = new ArrayList<>();
+    }
+}
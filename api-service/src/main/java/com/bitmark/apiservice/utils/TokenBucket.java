@@ -0,0 +1,56 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that hands out reservations instead of blocking. A caller
+ * over budget takes a token in advance and is told how long to wait for
+ * it, so waiting callers are served in order at exactly the configured rate.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+
+    private final double nanosPerToken;
+
+    // Negative when tokens are reserved in advance
+    private double tokens;
+
+    private long refilledAt;
+
+    public TokenBucket(double permitsPerSecond, int burst, long now) {
+        this.capacity = burst;
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    /**
+     * @param now     current time in nanoseconds
+     * @param maxWait longest acceptable wait in nanoseconds, negative to
+     *                accept any wait
+     * @return nanoseconds to wait before the request is sent, or -1 if the
+     * wait is longer than the max wait and no token was taken
+     */
+    public synchronized long reserve(long now, long maxWait) {
+        if (now > refilledAt) {
+            tokens = Math.min(
+                    capacity,
+                    tokens + (now - refilledAt) / nanosPerToken
+            );
+            refilledAt = now;
+        }
+        long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * nanosPerToken);
+        if (maxWait >= 0 && wait > maxWait) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+}
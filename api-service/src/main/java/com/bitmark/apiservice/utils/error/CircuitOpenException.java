@@ -0,0 +1,15 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils.error;
+
+public class CircuitOpenException extends NetworkException {
+
+    public CircuitOpenException(String endpoint) {
+        super("Circuit is open for " + endpoint);
+    }
+
+}
@@ -0,0 +1,414 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.middleware.CompressionStats;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.params.Params;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.utils.AdaptiveLimiter;
+import com.bitmark.apiservice.utils.DirectExecutor;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import okhttp3.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static com.bitmark.apiservice.test.unittest.DataProvider.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApiServiceTest {
+
+    private static final MediaType JSON =
+            MediaType.parse("application/json; charset=utf-8");
+
+    private static final String ASSET =
+            "{\"asset\":{\"id\":\"asset\",\"name\":\"name\"}}";
+
+    private static final int MAX_ASSETS = 100;
+
+    // Assets that have a genesis bitmark on the fake server
+    private final Set<String> issuedAssets = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService callbackExecutor =
+            Executors.newSingleThreadExecutor(r -> new Thread(
+                    r,
+                    "Bitmark Callback"
+            ));
+
+    @AfterEach
+    public void afterEach() {
+        callbackExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testGetAsset_CallbackExecutor_CallbackRunOnExecutor()
+            throws Exception {
+        ApiService service = new ApiService(
+                new FakeHttpClient(path -> ASSET),
+                callbackExecutor,
+                MAX_ASSETS
+        );
+
+        Result<AssetRecord> result = new Result<>();
+        service.getAsset("asset", result);
+
+        assertEquals("asset", result.get().getId());
+        assertEquals("Bitmark Callback", result.thread);
+    }
+
+    @Test
+    public void testGetAsset_CallbackExecutorRejects_SuccessRunInline()
+            throws Exception {
+        callbackExecutor.shutdown();
+        ApiService service = new ApiService(
+                new FakeHttpClient(path -> ASSET),
+                callbackExecutor,
+                MAX_ASSETS
+        );
+
+        Result<AssetRecord> result = new Result<>();
+        service.getAsset("asset", result);
+
+        assertEquals("asset", result.get().getId());
+        assertEquals(Thread.currentThread().getName(), result.thread);
+    }
+
+    @Test
+    public void testGetAsset_CallbackExecutorRejects_ErrorRunInline() {
+        callbackExecutor.shutdown();
+        ApiService service = new ApiService(
+                new FakeHttpClient(path -> null),
+                callbackExecutor,
+                MAX_ASSETS
+        );
+
+        Result<AssetRecord> result = new Result<>();
+        service.getAsset("asset", result);
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertEquals("Not found", e.getCause().getMessage());
+        assertEquals(Thread.currentThread().getName(), result.thread);
+    }
+
+    @Test
+    public void testIssueBitmark_GenesisUnknown_SignedOffNetworkThread()
+            throws Exception {
+        ExecutorService network = Executors.newSingleThreadExecutor(
+                r -> new Thread(r, "OkHttp Dispatcher"));
+        FakeHttpClient client = new FakeHttpClient(
+                path -> path.startsWith("/v3/bitmarks")
+                        ? "{\"bitmarks\":[]}"
+                        : "{\"bitmarks\":[{\"id\":\"bitmark\"}]}"
+        );
+        client.responder = network;
+        ApiService service = new ApiService(
+                client,
+                DirectExecutor.INSTANCE,
+                MAX_ASSETS
+        );
+        IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1);
+        params.signLazily(KEY_PAIR_1);
+
+        Result<List<BitmarkRecord>> result = new Result<>();
+        service.issueBitmark(params, result);
+
+        assertEquals("bitmark", result.get().get(0).getId());
+        assertEquals(1, client.postedOn.size());
+        assertNotEquals("OkHttp Dispatcher", client.postedOn.get(0));
+        network.shutdown();
+    }
+
+    @Test
+    public void testIssueBitmark_AssetWithGenesis_QueriedOnce()
+            throws Exception {
+        issuedAssets.add(ASSET_ID);
+        FakeHttpClient client = issuingClient();
+        ApiService service = new ApiService(
+                client,
+                DirectExecutor.INSTANCE,
+                MAX_ASSETS
+        );
+
+        issue(service, ASSET_ID);
+        issue(service, ASSET_ID);
+
+        assertEquals(1, queries(client, ASSET_ID));
+        assertEquals(2, client.posted.size());
+        assertFalse(isGenesisIssued(client.posted.get(0)));
+        assertFalse(isGenesisIssued(client.posted.get(1)));
+    }
+
+    @Test
+    public void testIssueBitmark_GenesisIssued_NextIssueNotQueried()
+            throws Exception {
+        FakeHttpClient client = issuingClient();
+        ApiService service = new ApiService(
+                client,
+                DirectExecutor.INSTANCE,
+                MAX_ASSETS
+        );
+
+        issue(service, ASSET_ID);
+        issue(service, ASSET_ID);
+
+        assertEquals(1, queries(client, ASSET_ID));
+        assertTrue(isGenesisIssued(client.posted.get(0)));
+        assertFalse(isGenesisIssued(client.posted.get(1)));
+    }
+
+    @Test
+    public void testIssueBitmark_GenesisIssueFails_NextIssueQueried() {
+        FakeHttpClient client = new FakeHttpClient(
+                path -> path.startsWith("/v3/bitmarks")
+                        ? "{\"bitmarks\":[]}"
+                        : null
+        );
+        ApiService service = new ApiService(
+                client,
+                DirectExecutor.INSTANCE,
+                MAX_ASSETS
+        );
+
+        assertThrows(ExecutionException.class, () -> issue(service, ASSET_ID));
+        assertThrows(ExecutionException.class, () -> issue(service, ASSET_ID));
+
+        assertEquals(2, queries(client, ASSET_ID));
+    }
+
+    @Test
+    public void testIssueBitmark_OverMaxAssets_LeastRecentlyUsedEvicted()
+            throws Exception {
+        String first = assetId(1);
+        String second = assetId(2);
+        String third = assetId(3);
+        issuedAssets.addAll(Arrays.asList(first, second, third));
+        FakeHttpClient client = issuingClient();
+        ApiService service = new ApiService(client, DirectExecutor.INSTANCE, 2);
+
+        issue(service, first);
+        issue(service, second);
+        // A hit makes the first asset the most recently used
+        issue(service, first);
+        issue(service, third);
+        issue(service, first);
+        issue(service, second);
+
+        assertEquals(1, queries(client, first));
+        assertEquals(2, queries(client, second));
+        assertEquals(1, queries(client, third));
+    }
+
+    private FakeHttpClient issuingClient() {
+        return new FakeHttpClient(path -> {
+            if (!path.startsWith("/v3/bitmarks")) {
+                return "{\"bitmarks\":[{\"id\":\"bitmark\"}]}";
+            }
+            for (String assetId : issuedAssets) {
+                if (path.contains(assetId)) {
+                    return "{\"bitmarks\":[{\"id\":\"genesis\"}]}";
+                }
+            }
+            return "{\"bitmarks\":[]}";
+        });
+    }
+
+    private void issue(ApiService service, String assetId) throws Exception {
+        IssuanceParams params = new IssuanceParams(assetId, ADDRESS1);
+        params.signLazily(KEY_PAIR_1);
+        Result<List<BitmarkRecord>> result = new Result<>();
+        service.issueBitmark(params, result);
+        result.get();
+        issuedAssets.add(assetId);
+    }
+
+    private static long queries(FakeHttpClient client, String assetId) {
+        return client.paths.stream()
+                           .filter(path -> path.startsWith("/v3/bitmarks")
+                                           && path.contains(assetId))
+                           .count();
+    }
+
+    private static boolean isGenesisIssued(Params params) {
+        return params.toJson().contains("\"nonce\":0}");
+    }
+
+    private static String assetId(int index) {
+        return String.format("%0128x", index);
+    }
+
+    /**
+     * Records the thread that completed it
+     */
+    static final class Result<T> implements Callback1<T> {
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private volatile String thread;
+
+        @Override
+        public void onSuccess(T data) {
+            thread = Thread.currentThread().getName();
+            future.complete(data);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            thread = Thread.currentThread().getName();
+            future.completeExceptionally(throwable);
+        }
+
+        T get() throws Exception {
+            return future.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Answers with the body returned for the path, or with an error if
+     * there is none, and records the paths of the requests. The params of
+     * a write are serialized, and so signed, on the calling thread like
+     * {@link HttpClientImpl} does.
+     */
+    static final class FakeHttpClient implements HttpClient {
+
+        private final Function<String, String> bodies;
+
+        final List<String> paths = new CopyOnWriteArrayList<>();
+
+        final List<Params> posted = new CopyOnWriteArrayList<>();
+
+        // Threads that sent the writes
+        final List<String> postedOn = new CopyOnWriteArrayList<>();
+
+        volatile Executor responder = DirectExecutor.INSTANCE;
+
+        FakeHttpClient(Function<String, String> bodies) {
+            this.bodies = bodies;
+        }
+
+        @Override
+        public void getAsync(String path, Callback1<Response> callback) {
+            getAsync(path, null, callback);
+        }
+
+        @Override
+        public void getAsync(
+                String path,
+                QueryParams params,
+                Callback1<Response> callback
+        ) {
+            respond(
+                    params == null ? path : path + "?" + params.toUrlQuery(),
+                    callback
+            );
+        }
+
+        @Override
+        public void postAsync(
+                String path,
+                Params params,
+                Callback1<Response> callback
+        ) {
+            postAsync(path, null, params, callback);
+        }
+
+        @Override
+        public void postAsync(
+                String path,
+                Headers headers,
+                Params params,
+                Callback1<Response> callback
+        ) {
+            params.toJson();
+            posted.add(params);
+            postedOn.add(Thread.currentThread().getName());
+            respond(path, callback);
+        }
+
+        @Override
+        public void patchAsync(
+                String path,
+                Params params,
+                Callback1<Response> callback
+        ) {
+            patchAsync(path, null, params, callback);
+        }
+
+        @Override
+        public void patchAsync(
+                String path,
+                Headers headers,
+                Params params,
+                Callback1<Response> callback
+        ) {
+            respond(path, callback);
+        }
+
+        @Override
+        public void deleteAsync(String path, Callback1<Response> callback) {
+            deleteAsync(path, null, callback);
+        }
+
+        @Override
+        public void deleteAsync(
+                String path,
+                Params params,
+                Callback1<Response> callback
+        ) {
+            respond(path, callback);
+        }
+
+        @Override
+        public int getQueuedRequestCount() {
+            return 0;
+        }
+
+        @Override
+        public int getInFlightRequestCount() {
+            return 0;
+        }
+
+        @Override
+        public CompressionStats getCompressionStats() {
+            return new CompressionStats();
+        }
+
+        @Override
+        public AdaptiveLimiter getConcurrencyLimiter(
+                EndpointClass endpointClass
+        ) {
+            return null;
+        }
+
+        private void respond(String path, Callback1<Response> callback) {
+            paths.add(path);
+            String body = bodies.apply(path);
+            responder.execute(() -> {
+                if (body == null) {
+                    callback.onError(new IllegalStateException("Not found"));
+                    return;
+                }
+                callback.onSuccess(new Response.Builder()
+                        .request(new Request.Builder()
+                                .url("https://api.test.bitmark.com" + path)
+                                .build())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .message("OK")
+                        .body(ResponseBody.create(JSON, body))
+                        .build());
+            });
+        }
+    }
+}
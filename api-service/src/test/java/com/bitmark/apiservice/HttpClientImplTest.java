@@ -0,0 +1,176 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.test.BaseTest;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import okhttp3.*;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpClientImplTest extends BaseTest {
+
+    private MockWebServer server;
+
+    private ExecutorService decodeExecutor;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        decodeExecutor = Executors.newSingleThreadExecutor(r -> new Thread(
+                r,
+                "Bitmark Decode"
+        ));
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        decodeExecutor.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void testGet_DecodeExecutor_ResponseHandledOffDispatcher()
+            throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        HttpClientImpl client = new HttpClientImpl(
+                endpoint(),
+                "token",
+                decodeExecutor
+        );
+
+        assertEquals("Bitmark Decode", get(client));
+    }
+
+    @Test
+    public void testGet_NoDecodeExecutor_ResponseHandledOnDispatcher()
+            throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        HttpClientImpl client = new HttpClientImpl(endpoint(), "token", null);
+
+        assertTrue(get(client).startsWith("OkHttp"));
+    }
+
+    @Test
+    public void testBuildClient_GlobalConfiguration_ConnectionsConfigured() {
+        OkHttpClient client =
+                new HttpClientImpl(endpoint(), "token", null).getClient();
+        Dispatcher dispatcher = client.dispatcher();
+
+        assertEquals(
+                GlobalConfiguration.maxRequests(),
+                dispatcher.getMaxRequests()
+        );
+        assertEquals(
+                Math.min(
+                        GlobalConfiguration.maxRequests(),
+                        GlobalConfiguration.maxRequestsPerHost()
+                ),
+                dispatcher.getMaxRequestsPerHost()
+        );
+        assertEquals(0, client.connectionPool().connectionCount());
+    }
+
+    @Test
+    public void testConfigureConnections_Limits_DispatcherLimited() {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        HttpClientImpl.configureConnections(builder, 4, 2, 5, 300);
+        Dispatcher dispatcher = builder.build().dispatcher();
+
+        assertEquals(4, dispatcher.getMaxRequests());
+        assertEquals(2, dispatcher.getMaxRequestsPerHost());
+
+        builder = new OkHttpClient.Builder();
+        HttpClientImpl.configureConnections(builder, 1, 5, 5, 300);
+        // A host never gets more than the total
+        assertEquals(1, builder.build().dispatcher().getMaxRequestsPerHost());
+    }
+
+    @Test
+    public void testConfigureConnections_Pool_IdleConnectionsBounded()
+            throws Exception {
+        CountDownLatch arrived = new CountDownLatch(2);
+        server.setDispatcher(new okhttp3.mockwebserver.Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request)
+                    throws InterruptedException {
+                // Both requests are in flight at once, on two connections
+                arrived.countDown();
+                arrived.await(5, TimeUnit.SECONDS);
+                return new MockResponse().setBody("{}");
+            }
+        });
+        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        HttpClientImpl.configureConnections(builder, 4, 2, 1, 1);
+        OkHttpClient client = builder.build();
+
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[2];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    client.newCall(new Request.Builder()
+                            .url(server.url("/v3/assets/id"))
+                            .build()).execute().close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        CompletableFuture.allOf(calls).get(5, TimeUnit.SECONDS);
+        ConnectionPool pool = client.connectionPool();
+
+        // One idle connection is kept, for the keep alive of one second
+        waitUntil(() -> pool.connectionCount() == 1);
+        waitUntil(() -> pool.connectionCount() == 0);
+    }
+
+    private static void waitUntil(Callable<Boolean> condition)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.call()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private String endpoint() {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    /**
+     * @return name of the thread that received the response
+     */
+    private static String get(HttpClientImpl client) throws Exception {
+        CompletableFuture<String> thread = new CompletableFuture<>();
+        client.getAsync("/v3/assets/id", new Callback1<Response>() {
+            @Override
+            public void onSuccess(Response data) {
+                data.close();
+                thread.complete(Thread.currentThread().getName());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                thread.completeExceptionally(throwable);
+            }
+        });
+        return thread.get(5, TimeUnit.SECONDS);
+    }
+}
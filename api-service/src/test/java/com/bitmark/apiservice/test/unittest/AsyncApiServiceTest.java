@@ -0,0 +1,110 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest;
+
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.BitmarkApi;
+import com.bitmark.apiservice.BitmarkAsyncApi;
+import com.bitmark.apiservice.response.GetBitmarkResponse;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.error.HttpException;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import com.bitmark.cryptography.error.ValidateException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncApiServiceTest {
+
+    @Test
+    public void testCall_Success_FutureCompletedWithValue() throws Exception {
+        BitmarkAsyncApi service = new AsyncApiService(api(
+                callback -> callback.onSuccess("tx")));
+
+        CompletableFuture<String> future = service.transferBitmark(null);
+
+        assertEquals("tx", future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCall_Error_FutureCompletedExceptionally() {
+        BitmarkAsyncApi service = new AsyncApiService(api(
+                callback -> callback.onError(new HttpException(
+                        404,
+                        "Not found"
+                ))));
+
+        CompletableFuture<GetBitmarkResponse> future =
+                service.getBitmark("id", false);
+
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS)
+        );
+        assertTrue(e.getCause() instanceof HttpException);
+        assertEquals(404, ((HttpException) e.getCause()).getStatusCode());
+    }
+
+    @Test
+    public void testCall_Thrown_FutureCompletedExceptionally() {
+        BitmarkAsyncApi service = new AsyncApiService(api(callback -> {
+            throw new ValidateException("Invalid params");
+        }));
+
+        CompletableFuture<String> future = service.offerBitmark(null);
+
+        assertTrue(future.isCompletedExceptionally());
+        ExecutionException e =
+                assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof ValidateException);
+    }
+
+    @Test
+    public void testCall_ErrorLater_FutureCompletedOnCallbackThread()
+            throws Exception {
+        CountDownLatch attached = new CountDownLatch(1);
+        BitmarkAsyncApi service = new AsyncApiService(api(
+                callback -> new Thread(() -> {
+                    // Answer once the dependent stage is attached
+                    try {
+                        attached.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                    callback.onError(new NetworkException("Lost"));
+                }, "Bitmark Network").start()));
+
+        CompletableFuture<String> thread = service.grantShare(null).handle(
+                (value, throwable) -> Thread.currentThread().getName()
+        );
+        attached.countDown();
+
+        assertEquals("Bitmark Network", thread.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Every call of the api is answered by passing its callback, always the
+     * last argument, to the answer.
+     */
+    @SuppressWarnings("unchecked")
+    private static BitmarkApi api(Consumer<Callback1<Object>> answer) {
+        return (BitmarkApi) Proxy.newProxyInstance(
+                BitmarkApi.class.getClassLoader(),
+                new Class<?>[]{BitmarkApi.class},
+                (proxy, method, args) -> {
+                    answer.accept((Callback1<Object>) args[args.length - 1]);
+                    return null;
+                }
+        );
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest;
+
+import com.bitmark.apiservice.BitmarkBatchLoader;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.GetBitmarkResponse;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitmarkBatchLoaderTest {
+
+    private static final Gson GSON = new Gson();
+
+    @Test
+    public void testLoad_WithinWindow_OneBatchQuery() throws Exception {
+        List<String> queries = new CopyOnWriteArrayList<>();
+        BitmarkBatchLoader loader = new BitmarkBatchLoader(
+                (params, callback) -> {
+                    queries.add(params.toUrlQuery());
+                    callback.onSuccess(response(Arrays.asList("a", "b")));
+                },
+                (id, includeAsset, callback) -> fail("unexpected single get"),
+                50,
+                100
+        );
+        Map<String, GetBitmarkResponse> results = load(loader, "a", "b", "a");
+
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0).contains("bitmark_ids=a&bitmark_ids=b"));
+        assertEquals("a", results.get("a").getBitmark().getId());
+        assertEquals("b", results.get("b").getBitmark().getId());
+        assertEquals(1, loader.getBatchCount());
+        assertEquals(3, loader.getLoadCount());
+        loader.shutdown();
+    }
+
+    @Test
+    public void testLoad_MaxBatchSize_QuerySentBeforeWindow()
+            throws Exception {
+        List<String> queries = new CopyOnWriteArrayList<>();
+        BitmarkBatchLoader loader = new BitmarkBatchLoader(
+                (params, callback) -> {
+                    queries.add(params.toUrlQuery());
+                    callback.onSuccess(response(Arrays.asList("a", "b")));
+                },
+                (id, includeAsset, callback) -> fail("unexpected single get"),
+                60000,
+                2
+        );
+        load(loader, "a", "b");
+
+        assertEquals(1, queries.size());
+        loader.shutdown();
+    }
+
+    @Test
+    public void testLoad_MissingId_FallbackToSingleGet() throws Exception {
+        List<String> singleGets = new CopyOnWriteArrayList<>();
+        BitmarkBatchLoader loader = new BitmarkBatchLoader(
+                (params, callback) -> callback.onSuccess(response(
+                        Collections.singletonList("a"))),
+                (id, includeAsset, callback) -> {
+                    singleGets.add(id);
+                    callback.onSuccess(new GetBitmarkResponse(
+                            bitmark(id),
+                            null
+                    ));
+                },
+                50,
+                100
+        );
+        Map<String, GetBitmarkResponse> results = load(loader, "a", "b");
+
+        assertEquals(Collections.singletonList("b"), singleGets);
+        assertEquals("b", results.get("b").getBitmark().getId());
+        loader.shutdown();
+    }
+
+    @Test
+    public void testLoad_IncludeAsset_AssetIsMapped() throws Exception {
+        AssetRecord asset = GSON.fromJson("{\"id\":\"asset\"}", AssetRecord.class);
+        BitmarkBatchLoader loader = new BitmarkBatchLoader(
+                (params, callback) -> {
+                    assertTrue(params.toUrlQuery().contains("asset=true"));
+                    callback.onSuccess(new GetBitmarksResponse(
+                            Collections.singletonList(bitmark("a")),
+                            Collections.singletonList(asset)
+                    ));
+                },
+                (id, includeAsset, callback) -> fail("unexpected single get"),
+                50,
+                100
+        );
+        CountDownLatch latch = new CountDownLatch(1);
+        List<GetBitmarkResponse> results = new CopyOnWriteArrayList<>();
+        loader.load("a", true, new Callback1<GetBitmarkResponse>() {
+            @Override
+            public void onSuccess(GetBitmarkResponse data) {
+                results.add(data);
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("asset", results.get(0).getAsset().getId());
+        loader.shutdown();
+    }
+
+    @Test
+    public void testLoad_QueryFails_ErrorIsDelivered() throws Exception {
+        IllegalStateException error = new IllegalStateException("error");
+        BitmarkBatchLoader loader = new BitmarkBatchLoader(
+                (params, callback) -> callback.onError(error),
+                (id, includeAsset, callback) -> fail("unexpected single get"),
+                50,
+                100
+        );
+        CountDownLatch latch = new CountDownLatch(2);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        for (String id : new String[]{"a", "b"}) {
+            loader.load(id, false, new Callback1<GetBitmarkResponse>() {
+                @Override
+                public void onSuccess(GetBitmarkResponse data) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    errors.add(throwable);
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(error, error), errors);
+        loader.shutdown();
+    }
+
+    @Test
+    public void testLoad_CallbackThrows_OtherCallersServedWithoutError()
+            throws Exception {
+        BitmarkBatchLoader loader = new BitmarkBatchLoader(
+                (params, callback) -> callback.onSuccess(response(
+                        Arrays.asList("a", "b"))),
+                (id, includeAsset, callback) -> fail("unexpected single get"),
+                60000,
+                2
+        );
+        List<String> events = new CopyOnWriteArrayList<>();
+        loader.load("a", false, new Callback1<GetBitmarkResponse>() {
+            @Override
+            public void onSuccess(GetBitmarkResponse data) {
+                events.add("a success");
+                throw new IllegalStateException("callback");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                events.add("a error");
+            }
+        });
+        // Fills the batch, which is then sent and resolved on this thread
+        loader.load("b", false, new Callback1<GetBitmarkResponse>() {
+            @Override
+            public void onSuccess(GetBitmarkResponse data) {
+                events.add("b success");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                events.add("b error");
+            }
+        });
+
+        assertEquals(Arrays.asList("a success", "b success"), events);
+        loader.shutdown();
+    }
+
+    private static Map<String, GetBitmarkResponse> load(
+            BitmarkBatchLoader loader,
+            String... ids
+    ) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(ids.length);
+        Map<String, GetBitmarkResponse> results = new ConcurrentHashMap<>();
+        for (String id : ids) {
+            loader.load(id, false, new Callback1<GetBitmarkResponse>() {
+                @Override
+                public void onSuccess(GetBitmarkResponse data) {
+                    results.put(id, data);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private static GetBitmarksResponse response(List<String> ids) {
+        List<BitmarkRecord> bitmarks = new ArrayList<>();
+        for (String id : ids) {
+            bitmarks.add(bitmark(id));
+        }
+        return new GetBitmarksResponse(bitmarks, null);
+    }
+
+    private static BitmarkRecord bitmark(String id) {
+        return GSON.fromJson(
+                "{\"id\":\"" + id + "\",\"asset_id\":\"asset\"}",
+                BitmarkRecord.class
+        );
+    }
+}
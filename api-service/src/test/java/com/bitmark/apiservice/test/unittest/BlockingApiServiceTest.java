@@ -0,0 +1,112 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest;
+
+import com.bitmark.apiservice.BitmarkAsyncApi;
+import com.bitmark.apiservice.BlockingApiService;
+import com.bitmark.apiservice.utils.error.HttpException;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockingApiServiceTest {
+
+    @Test
+    public void testCall_FutureCompleted_ValueReturned() throws Exception {
+        BlockingApiService service = new BlockingApiService(api(
+                CompletableFuture.completedFuture("tx")));
+
+        assertEquals("tx", service.transferBitmark(null));
+    }
+
+    @Test
+    public void testCall_IOExceptionCause_RethrownAsIs() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new NetworkException("Unreachable"));
+        BlockingApiService service = new BlockingApiService(api(future));
+
+        NetworkException e = assertThrows(
+                NetworkException.class,
+                () -> service.offerBitmark(null)
+        );
+        assertEquals("Unreachable", e.getMessage());
+    }
+
+    @Test
+    public void testCall_HttpExceptionCause_RethrownAsIs() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new HttpException(404, "Not found"));
+        BlockingApiService service = new BlockingApiService(api(future));
+
+        HttpException e = assertThrows(
+                HttpException.class,
+                () -> service.getAsset("id")
+        );
+        assertEquals(404, e.getStatusCode());
+    }
+
+    @Test
+    public void testCall_CheckedCause_Wrapped() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new Exception("Checked"));
+        BlockingApiService service = new BlockingApiService(api(future));
+
+        assertThrows(UnexpectedException.class, () -> service.getShare("id"));
+    }
+
+    @Test
+    public void testCall_Timeout_FutureCancelled() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        BlockingApiService service = new BlockingApiService(
+                api(future),
+                50,
+                TimeUnit.MILLISECONDS
+        );
+
+        assertThrows(NetworkException.class, () -> service.grantShare(null));
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testCall_Interrupted_FutureCancelled() throws Exception {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        BlockingApiService service = new BlockingApiService(api(future));
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            try {
+                service.respondShareOffer(null);
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+            done.countDown();
+        });
+        caller.start();
+        Thread.sleep(50);
+        caller.interrupt();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(thrown.get() instanceof InterruptedException);
+        assertTrue(future.isCancelled());
+    }
+
+    private static BitmarkAsyncApi api(CompletableFuture<?> future) {
+        return (BitmarkAsyncApi) Proxy.newProxyInstance(
+                BitmarkAsyncApi.class.getClassLoader(),
+                new Class<?>[]{BitmarkAsyncApi.class},
+                (proxy, method, args) -> future
+        );
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.configuration;
+
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+    private static final String ENDPOINT = "https://api.test.bitmark.com";
+
+    @Test
+    public void testIsRetryable_GetRequest_True() {
+        RetryPolicy policy = RetryPolicy.builder().build();
+        assertTrue(policy.isRetryable(new Request.Builder().url(
+                ENDPOINT + "/v3/bitmarks").build()));
+    }
+
+    @Test
+    public void testIsRetryable_SafeWrite_True() {
+        RetryPolicy policy = RetryPolicy.builder().build();
+        assertTrue(policy.isRetryable(post("/v3/register-asset")));
+    }
+
+    @Test
+    public void testIsRetryable_IssueByDefault_False() {
+        assertFalse(RetryPolicy.builder().build().isRetryable(post("/v3/issue")));
+        assertTrue(RetryPolicy.builder()
+                           .withSafeWritePaths("/v3/issue")
+                           .build()
+                           .isRetryable(post("/v3/issue")));
+    }
+
+    @Test
+    public void testIsRetryable_UnsafeWrite_False() {
+        RetryPolicy policy = RetryPolicy.builder().build();
+        assertFalse(policy.isRetryable(post("/v3/transfer")));
+    }
+
+    @Test
+    public void testIsRetryableStatus_DefaultStatuses_Match() {
+        RetryPolicy policy = RetryPolicy.builder().build();
+        assertTrue(policy.isRetryableStatus(429));
+        assertTrue(policy.isRetryableStatus(503));
+        assertFalse(policy.isRetryableStatus(500));
+        assertFalse(policy.isRetryableStatus(404));
+    }
+
+    @Test
+    public void testGetDelay_NoJitter_ExponentialAndCapped() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .withBackoff(100, 1000, 2)
+                .withJitter(0)
+                .build();
+        assertEquals(100, policy.getDelay(0, null));
+        assertEquals(200, policy.getDelay(1, null));
+        assertEquals(400, policy.getDelay(2, null));
+        assertEquals(1000, policy.getDelay(5, null));
+    }
+
+    @Test
+    public void testGetDelay_Jitter_WithinRange() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .withBackoff(1000, 1000, 2)
+                .withJitter(0.5)
+                .build();
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.getDelay(0, null);
+            assertTrue(delay >= 500 && delay <= 1000);
+        }
+    }
+
+    @Test
+    public void testGetDelay_RetryAfter_Honored() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .withBackoff(100, 5000, 2)
+                .withJitter(0)
+                .build();
+        assertEquals(2000, policy.getDelay(0, "2"));
+        assertEquals(-1, policy.getDelay(0, "60"));
+    }
+
+    @Test
+    public void testBuild_InvalidJitter_ErrorIsThrown() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> RetryPolicy.builder().withJitter(2).build()
+        );
+    }
+
+    private static Request post(String path) {
+        return new Request.Builder().url(ENDPOINT + path)
+                .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+                .build();
+    }
+}
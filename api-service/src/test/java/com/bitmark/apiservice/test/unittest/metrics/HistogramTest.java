@@ -0,0 +1,71 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.metrics;
+
+import com.bitmark.apiservice.metrics.Histogram;
+import com.bitmark.apiservice.metrics.HistogramSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testSnapshot_Empty_Zero() {
+        HistogramSnapshot snapshot = new Histogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testSnapshot_SmallValues_Exact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(50, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(50, snapshot.getMax());
+        assertEquals(25.5, snapshot.getMean(), 0.001);
+        assertEquals(25, snapshot.getMedian());
+        assertEquals(50, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testSnapshot_LargeValues_WithinRelativeError() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertWithinError(5_000_000, snapshot.getMedian());
+        assertWithinError(9_900_000, snapshot.get99thPercentile());
+        assertWithinError(9_990_000, snapshot.getValueAtPercentile(99.9));
+        assertEquals(10_000_000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testRecord_ExtremeValues_Recorded() {
+        Histogram histogram = new Histogram();
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(Long.MAX_VALUE, snapshot.getValueAtPercentile(100));
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue(
+                Math.abs(actual - expected) <= expected / 32,
+                actual + " is not within 1/32 of " + expected
+        );
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.metrics;
+
+import com.bitmark.apiservice.metrics.EndpointMetrics;
+import com.bitmark.apiservice.metrics.EndpointSnapshot;
+import com.bitmark.apiservice.metrics.MetricsRegistry;
+import com.bitmark.apiservice.metrics.MetricsSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testSnapshot_EndpointCalls_Counted() {
+        MetricsRegistry registry = new MetricsRegistry();
+        EndpointMetrics metrics = registry.endpoint("POST /v3/transfer");
+        metrics.onSend(100);
+        metrics.onResponse(2000, 50);
+        metrics.onRetry();
+        metrics.onSend(100);
+        metrics.onResponse(3000, 20);
+        metrics.onError(400);
+        metrics.onSend(100);
+
+        EndpointSnapshot snapshot = registry.snapshot()
+                                            .getEndpoint("POST /v3/transfer");
+        assertEquals(3, snapshot.getRequestCount());
+        assertEquals(1, snapshot.getInFlight());
+        assertEquals(300, snapshot.getBytesSent());
+        assertEquals(70, snapshot.getBytesReceived());
+        assertEquals(1, snapshot.getRetryCount());
+        assertEquals(1L, snapshot.getErrorCounts().get(400).longValue());
+        assertEquals(2, snapshot.getLatency().getCount());
+        assertEquals(3000, snapshot.getLatency().getMax());
+    }
+
+    @Test
+    public void testSnapshot_UnknownBodySize_ReadBytesCounted() {
+        MetricsRegistry registry = new MetricsRegistry();
+        EndpointMetrics metrics = registry.endpoint("GET /v3/bitmarks");
+        metrics.onSend(0);
+        metrics.onResponse(1000, -1);
+        metrics.onReceived(8192);
+        metrics.onReceived(100);
+        metrics.onReceived(-1);
+
+        EndpointSnapshot snapshot = registry.snapshot()
+                                            .getEndpoint("GET /v3/bitmarks");
+        assertEquals(8292, snapshot.getBytesReceived());
+    }
+
+    @Test
+    public void testSnapshot_NetworkError_CountedAndReleased() {
+        MetricsRegistry registry = new MetricsRegistry();
+        EndpointMetrics metrics = registry.endpoint("GET /v3/bitmarks");
+        metrics.onSend(0);
+        metrics.onNetworkError(1000);
+
+        EndpointSnapshot snapshot = registry.snapshot()
+                                            .getEndpoint("GET /v3/bitmarks");
+        assertEquals(0, snapshot.getInFlight());
+        assertEquals(1, snapshot.getNetworkErrorCount());
+        assertTrue(snapshot.getErrorCounts().isEmpty());
+    }
+
+    @Test
+    public void testSnapshot_Timers_Recorded() {
+        MetricsRegistry registry = new MetricsRegistry();
+        long start = System.nanoTime();
+        long next = registry.recordSince("TransferParams.pack", start);
+        registry.recordSince("TransferParams.sign", next);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertTrue(next >= start);
+        assertEquals(1, snapshot.getTimer("TransferParams.pack").getCount());
+        assertEquals(1, snapshot.getTimer("TransferParams.sign").getCount());
+    }
+
+    @Test
+    public void testSnapshot_Gauge_ReadAtSnapshotTime() {
+        MetricsRegistry registry = new MetricsRegistry();
+        AtomicLong value = new AtomicLong(1);
+        registry.gauge("http.queued", value::get);
+        assertEquals(1L, registry.snapshot().getGauges().get("http.queued").longValue());
+
+        value.set(5);
+        assertEquals(5L, registry.snapshot().getGauges().get("http.queued").longValue());
+    }
+
+    @Test
+    public void testEndpoint_SameName_SameMetrics() {
+        MetricsRegistry registry = new MetricsRegistry();
+        assertSame(
+                registry.endpoint("GET /v3/txs/{id}"),
+                registry.endpoint("GET /v3/txs/{id}")
+        );
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.middleware;
+
+import com.bitmark.apiservice.middleware.BitmarkApiInterceptor;
+import com.bitmark.apiservice.test.BaseTest;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitmarkApiInterceptorTest extends BaseTest {
+
+    private MockWebServer server;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testIntercept_NoConditionalRequests_CachingDisabled()
+            throws Exception {
+        RecordedRequest request = get(new BitmarkApiInterceptor("token"));
+
+        assertEquals("token", request.getHeader("API-TOKEN"));
+        assertEquals(
+                Arrays.asList("no-cache", "no-store"),
+                request.getHeaders().values("Cache-Control")
+        );
+    }
+
+    @Test
+    public void testIntercept_ConditionalRequests_CachingAllowed()
+            throws Exception {
+        RecordedRequest request = get(new BitmarkApiInterceptor(
+                "token",
+                true
+        ));
+
+        assertEquals("token", request.getHeader("API-TOKEN"));
+        assertNull(request.getHeader("Cache-Control"));
+    }
+
+    private RecordedRequest get(BitmarkApiInterceptor interceptor)
+            throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(interceptor)
+                .build();
+        client.newCall(new Request.Builder()
+                .url(server.url("/v3/bitmarks"))
+                .build()).execute().close();
+        return server.takeRequest();
+    }
+}
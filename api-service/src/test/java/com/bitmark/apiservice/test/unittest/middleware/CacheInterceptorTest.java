@@ -0,0 +1,195 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.middleware;
+
+import com.bitmark.apiservice.configuration.CacheConfiguration;
+import com.bitmark.apiservice.middleware.CacheInterceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheInterceptorTest {
+
+    private static final String CONFIRMED_ASSET =
+            "{\"asset\":{\"id\":\"1\",\"status\":\"confirmed\"}}";
+
+    private static final String PENDING_TX =
+            "{\"tx\":{\"id\":\"1\",\"status\":\"pending\"}}";
+
+    private MockWebServer server;
+
+    private File directory;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        directory = Files.createTempDirectory("cache").toFile();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testGet_ConfirmedAsset_ServedFromCache() throws IOException {
+        server.enqueue(new MockResponse().setBody(CONFIRMED_ASSET));
+        OkHttpClient client = newClient(CacheConfiguration.builder().build());
+
+        assertEquals(CONFIRMED_ASSET, get(client, "/v3/assets/1"));
+        assertEquals(CONFIRMED_ASSET, get(client, "/v3/assets/1"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testGet_PendingTx_NotCached() throws IOException {
+        server.enqueue(new MockResponse().setBody(PENDING_TX));
+        server.enqueue(new MockResponse().setBody(PENDING_TX));
+        OkHttpClient client = newClient(CacheConfiguration.builder().build());
+
+        get(client, "/v3/txs/1");
+        get(client, "/v3/txs/1");
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testGet_ListRequest_NotCached() throws IOException {
+        server.enqueue(new MockResponse().setBody("{\"assets\":[]}"));
+        server.enqueue(new MockResponse().setBody("{\"assets\":[]}"));
+        OkHttpClient client = newClient(CacheConfiguration.builder().build());
+
+        get(client, "/v3/assets?limit=1");
+        get(client, "/v3/assets?limit=1");
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testGet_NotFoundWithTtl_ServedFromCache() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        OkHttpClient client = newClient(CacheConfiguration.builder()
+                .withNotFoundTtl(60).build());
+
+        assertEquals(404, code(client, "/v3/assets/2"));
+        assertEquals(404, code(client, "/v3/assets/2"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testGet_NotFoundWithoutTtl_NotCached() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setResponseCode(404));
+        OkHttpClient client = newClient(CacheConfiguration.builder().build());
+
+        code(client, "/v3/assets/2");
+        code(client, "/v3/assets/2");
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testGet_StalePendingTx_ServedAndRevalidated()
+            throws Exception {
+        String confirmed = "{\"tx\":{\"id\":\"1\",\"status\":\"confirmed\"}}";
+        server.enqueue(new MockResponse().setBody(PENDING_TX));
+        server.enqueue(new MockResponse().setBody(confirmed));
+        OkHttpClient client = newClient(CacheConfiguration.builder()
+                .withStaleWhileRevalidate(60).build());
+
+        assertEquals(PENDING_TX, get(client, "/v3/txs/1"));
+        assertEquals(PENDING_TX, get(client, "/v3/txs/1"));
+        server.takeRequest(1, TimeUnit.SECONDS);
+        server.takeRequest(1, TimeUnit.SECONDS);
+
+        // Wait for the background revalidation to be stored
+        long deadline = System.currentTimeMillis() + 2000;
+        String body = get(client, "/v3/txs/1");
+        while (!confirmed.equals(body)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            body = get(client, "/v3/txs/1");
+        }
+        assertEquals(confirmed, body);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testGet_DiskTier_SurvivesNewInstance() throws IOException {
+        server.enqueue(new MockResponse().setBody(CONFIRMED_ASSET));
+        CacheConfiguration configuration = CacheConfiguration.builder()
+                .withDiskCache(directory, 1024 * 1024).build();
+
+        get(newClient(configuration), "/v3/assets/1");
+        assertEquals(
+                CONFIRMED_ASSET,
+                get(newClient(configuration), "/v3/assets/1")
+        );
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testGet_DiskTierFull_EldestEvicted() throws IOException {
+        server.enqueue(new MockResponse().setBody(CONFIRMED_ASSET));
+        server.enqueue(new MockResponse().setBody(CONFIRMED_ASSET));
+        CacheConfiguration configuration = CacheConfiguration.builder()
+                .withDiskCache(directory, CONFIRMED_ASSET.length() + 150)
+                .build();
+        OkHttpClient client = newClient(configuration);
+
+        get(client, "/v3/assets/1");
+        get(client, "/v3/assets/2");
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    public void testBuild_InvalidCapacity_ErrorIsThrown() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> CacheConfiguration.builder().withMemoryCapacity(0).build()
+        );
+    }
+
+    private OkHttpClient newClient(CacheConfiguration configuration) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(new CacheInterceptor(configuration))
+                .build();
+    }
+
+    private String get(OkHttpClient client, String path) throws IOException {
+        try (Response response = client.newCall(newRequest(path)).execute()) {
+            return response.body().string();
+        }
+    }
+
+    private int code(OkHttpClient client, String path) throws IOException {
+        try (Response response = client.newCall(newRequest(path)).execute()) {
+            return response.code();
+        }
+    }
+
+    private Request newRequest(String path) {
+        return new Request.Builder().url(server.url(path)).build();
+    }
+}
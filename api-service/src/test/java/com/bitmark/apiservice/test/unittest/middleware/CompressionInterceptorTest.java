@@ -0,0 +1,146 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.middleware;
+
+import com.bitmark.apiservice.middleware.CompressionInterceptor;
+import com.bitmark.apiservice.middleware.CompressionStats;
+import okhttp3.*;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionInterceptorTest {
+
+    private static final MediaType JSON =
+            MediaType.parse("application/json; charset=utf-8");
+
+    private MockWebServer server;
+
+    private CompressionStats stats;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        stats = new CompressionStats();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testPost_LargeBody_Compressed() throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        OkHttpClient client = newClient(100);
+        String body = repeat("{\"owner\":\"e1pFRPqPhY2gpgJTpCiwXDnVeouY9EjHY6STtKwdN6Z4bp4sog\"}", 50);
+
+        post(client, body);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        // Compressed while it is sent, so the length is not known before
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+        assertNull(request.getHeader("Content-Length"));
+        assertEquals(body, gunzip(request.getBody()));
+        assertEquals(body.length(), stats.getRequestBytes());
+        assertEquals(request.getBodySize(), stats.getCompressedRequestBytes());
+        assertTrue(stats.getBytesSaved() > 0);
+    }
+
+    @Test
+    public void testPost_SmallBody_NotCompressed() throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        OkHttpClient client = newClient(100);
+
+        post(client, "{\"id\":\"1\"}");
+
+        RecordedRequest request = server.takeRequest();
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals("{\"id\":\"1\"}", request.getBody().readUtf8());
+        assertEquals(0, stats.getRequestBytes());
+    }
+
+    @Test
+    public void testPost_Disabled_NotCompressed() throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        OkHttpClient client = newClient(-1);
+
+        post(client, repeat("{\"id\":\"1\"}", 100));
+
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void testGet_GzipResponse_DecodedAndCounted() throws Exception {
+        String body = repeat("{\"id\":\"1\",\"status\":\"confirmed\"}", 100);
+        Buffer compressed = gzip(body);
+        long compressedSize = compressed.size();
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(compressed));
+        OkHttpClient client = newClient(-1);
+
+        try (Response response = client.newCall(
+                new Request.Builder().url(server.url("/v3/txs")).build()).execute()) {
+            assertEquals(body, response.body().string());
+        }
+
+        assertEquals("gzip", server.takeRequest().getHeader("Accept-Encoding"));
+        assertEquals(body.length(), stats.getResponseBytes());
+        assertEquals(compressedSize, stats.getCompressedResponseBytes());
+    }
+
+    private OkHttpClient newClient(long threshold) {
+        CompressionInterceptor interceptor = new CompressionInterceptor(threshold, stats);
+        return new OkHttpClient.Builder()
+                .addInterceptor(interceptor)
+                .addNetworkInterceptor(interceptor.networkInterceptor())
+                .build();
+    }
+
+    private void post(OkHttpClient client, String body) throws IOException {
+        Request request = new Request.Builder()
+                .url(server.url("/v3/transfer"))
+                .post(RequestBody.create(JSON, body))
+                .build();
+        client.newCall(request).execute().close();
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    private static Buffer gzip(String value) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            sink.writeUtf8(value);
+        }
+        return buffer;
+    }
+
+    private static String gunzip(Buffer buffer) throws IOException {
+        return Okio.buffer(new GzipSource(buffer)).readUtf8();
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.middleware;
+
+import com.bitmark.apiservice.middleware.ConditionalRequestInterceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConditionalRequestInterceptorTest {
+
+    private static final String BITMARKS = "{\"bitmarks\":[{\"id\":\"1\"}]}";
+
+    private static final String LAST_MODIFIED = "Mon, 01 Jul 2019 00:00:00 GMT";
+
+    private MockWebServer server;
+
+    private ConditionalRequestInterceptor interceptor;
+
+    private OkHttpClient client;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        interceptor = new ConditionalRequestInterceptor(2);
+        client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testGet_NotModified_ServedFromPreviousBody() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(BITMARKS));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        assertEquals(BITMARKS, get("/v3/bitmarks?owner=a&limit=100"));
+        assertEquals(BITMARKS, get("/v3/bitmarks?owner=a&limit=100"));
+
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(1, interceptor.getNotModifiedCount());
+    }
+
+    @Test
+    public void testGet_ReorderedQuery_SharesValidators() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(BITMARKS));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        get("/v3/bitmarks?owner=a&limit=100");
+        assertEquals(BITMARKS, get("/v3/bitmarks?limit=100&owner=a"));
+
+        server.takeRequest();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testGet_Modified_ValidatorsReplaced() throws Exception {
+        String changed = "{\"bitmarks\":[]}";
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(BITMARKS));
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v2\"").setBody(changed));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        get("/v3/bitmarks?owner=a");
+        assertEquals(changed, get("/v3/bitmarks?owner=a"));
+        assertEquals(changed, get("/v3/bitmarks?owner=a"));
+
+        server.takeRequest();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals("\"v2\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testGet_LastModified_SentAsIfModifiedSince() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Last-Modified", LAST_MODIFIED)
+                .setBody(BITMARKS));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        get("/v3/txs?owner=a");
+        assertEquals(BITMARKS, get("/v3/txs?owner=a"));
+
+        server.takeRequest();
+        RecordedRequest request = server.takeRequest();
+        assertEquals(LAST_MODIFIED, request.getHeader("If-Modified-Since"));
+        assertNull(request.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testGet_NoValidators_SentUnconditionally() throws Exception {
+        server.enqueue(new MockResponse().setBody(BITMARKS));
+        server.enqueue(new MockResponse().setBody(BITMARKS));
+
+        get("/v3/bitmarks?owner=a");
+        get("/v3/bitmarks?owner=a");
+
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testGet_OverCapacity_EldestForgotten() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(BITMARKS));
+        }
+
+        get("/v3/bitmarks?owner=a");
+        get("/v3/bitmarks?owner=b");
+        get("/v3/bitmarks?owner=c");
+        get("/v3/bitmarks?owner=a");
+
+        for (int i = 0; i < 4; i++) {
+            assertNull(server.takeRequest().getHeader("If-None-Match"));
+        }
+    }
+
+    private String get(String path) throws IOException {
+        Request request = new Request.Builder().url(server.url(path)).build();
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals(200, response.code());
+            return response.body().string();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.paging;
+
+import com.bitmark.apiservice.paging.PageCursor;
+import com.bitmark.apiservice.paging.PageListener;
+import com.bitmark.apiservice.paging.PageSource;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCursorTest {
+
+    @Test
+    public void testIterate_InclusiveOffset_AllRecordsOnce() {
+        FakeSource source = new FakeSource(250, true);
+        PageCursor<Long> cursor = newCursor(source, 100, 2);
+
+        List<Long> records = new ArrayList<>();
+        cursor.forEachRemaining(records::add);
+        assertEquals(expected(250), records);
+    }
+
+    @Test
+    public void testIterate_ExclusiveOffset_AllRecordsOnce() {
+        FakeSource source = new FakeSource(250, false);
+        PageCursor<Long> cursor = newCursor(source, 100, 2);
+
+        List<Long> records = new ArrayList<>();
+        cursor.forEachRemaining(records::add);
+        assertEquals(expected(250), records);
+    }
+
+    @Test
+    public void testIterate_LimitOneInclusiveOffset_AllRecordsOnce() {
+        FakeSource source = new FakeSource(5, true);
+        PageCursor<Long> cursor = newCursor(source, 1, 1);
+
+        List<Long> records = new ArrayList<>();
+        cursor.forEachRemaining(records::add);
+        assertEquals(expected(5), records);
+    }
+
+    @Test
+    public void testStream_FullPages_AllRecordsOnce() {
+        FakeSource source = new FakeSource(300, true);
+
+        List<Long> records = newCursor(source, 100, 2).stream()
+                .collect(Collectors.toList());
+        assertEquals(expected(300), records);
+    }
+
+    @Test
+    public void testNextPage_SlowConsumer_BufferIsBounded() {
+        FakeSource source = new FakeSource(1000, true);
+        PageCursor<Long> cursor = newCursor(source, 100, 2);
+
+        assertNotNull(cursor.nextPage());
+        // Two pages are buffered and the consumed one was fetched before
+        assertEquals(3, source.fetchCount.get());
+    }
+
+    @Test
+    public void testIterate_SourceError_CompletionExceptionIsThrown() {
+        IllegalStateException error = new IllegalStateException("error");
+        PageCursor<Long> cursor = new PageCursor<>(
+                (params, callback) -> callback.onError(error),
+                new BitmarkQueryBuilder(),
+                value -> value,
+                2
+        );
+
+        CompletionException thrown = assertThrows(
+                CompletionException.class,
+                cursor::hasNext
+        );
+        assertSame(error, thrown.getCause());
+    }
+
+    @Test
+    public void testClose_BufferedPages_NoMoreRecords() {
+        FakeSource source = new FakeSource(1000, true);
+        PageCursor<Long> cursor = newCursor(source, 100, 2);
+
+        assertTrue(cursor.hasNext());
+        cursor.close();
+        assertNull(cursor.nextPage());
+    }
+
+    @Test
+    public void testSubscribe_AsyncSource_PagesInOrder() throws Exception {
+        FakeSource source = new FakeSource(250, true);
+        PageCursor<Long> cursor = new PageCursor<>(
+                (params, callback) -> new Thread(() -> source.fetch(
+                        params,
+                        callback
+                )).start(),
+                new BitmarkQueryBuilder().limit(100).to("earlier"),
+                value -> value,
+                2
+        );
+        List<Long> records = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+
+        cursor.subscribe(new PageListener<Long>() {
+            @Override
+            public void onPage(List<Long> page) {
+                records.addAll(page);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        });
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(expected(250), records);
+    }
+
+    private static PageCursor<Long> newCursor(
+            PageSource<Long> source,
+            int limit,
+            int maxBufferedPages
+    ) {
+        return new PageCursor<>(
+                source,
+                new BitmarkQueryBuilder().limit(limit).to("earlier"),
+                value -> value,
+                maxBufferedPages
+        );
+    }
+
+    private static List<Long> expected(long count) {
+        return LongStream.iterate(count, value -> value - 1)
+                .limit(count)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Records are their own offsets, from {@code count} down to 1, returned
+     * from the latest to the earliest.
+     */
+    private static class FakeSource implements PageSource<Long> {
+
+        private final long count;
+
+        private final boolean inclusive;
+
+        private final AtomicInteger fetchCount = new AtomicInteger();
+
+        FakeSource(long count, boolean inclusive) {
+            this.count = count;
+            this.inclusive = inclusive;
+        }
+
+        @Override
+        public void fetch(QueryParams params, Callback1<List<Long>> callback) {
+            fetchCount.incrementAndGet();
+            long at = count;
+            int limit = 100;
+            for (String pair : params.toUrlQuery().split("&")) {
+                String[] parts = pair.split("=");
+                if (parts[0].equals("at")) {
+                    at = Long.parseLong(parts[1]);
+                    if (!inclusive) {
+                        at--;
+                    }
+                } else if (parts[0].equals("limit")) {
+                    limit = Integer.parseInt(parts[1]);
+                }
+            }
+            List<Long> page = new ArrayList<>();
+            for (long offset = at; offset > 0 && page.size() < limit; offset--) {
+                page.add(offset);
+            }
+            callback.onSuccess(page);
+        }
+    }
+}
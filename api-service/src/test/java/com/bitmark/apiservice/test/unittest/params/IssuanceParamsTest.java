@@ -7,9 +7,13 @@
 package com.bitmark.apiservice.test.unittest.params;
 
 import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.params.NonceGenerator;
+import com.bitmark.apiservice.params.SigningPool;
 import com.bitmark.apiservice.test.BaseTest;
+import com.bitmark.apiservice.utils.IntHashSet;
 import com.bitmark.apiservice.utils.Pair;
 import com.bitmark.cryptography.error.ValidateException;
+import okio.Buffer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -20,6 +24,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 import static com.bitmark.apiservice.test.unittest.DataProvider.*;
@@ -131,6 +136,51 @@ public class IssuanceParamsTest extends BaseTest {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource("createValidAssetIdNonceSignatures")
+    public void testSignLazily_SelectedCase_SameSignaturesAreReturn(
+            String assetId,
+            int[] nonces,
+            List<byte[]> expectedSignature
+    )
+            throws NoSuchFieldException, IllegalAccessException {
+        final IssuanceParams params = new IssuanceParams(assetId, ADDRESS1);
+        reflectionSet(
+                params,
+                new Pair<>("noncesPair", new Pair<>(nonces, nonces))
+        );
+        params.signLazily(KEY_PAIR_1);
+        assertTrue(params.isSigned());
+        params.setContainsGenesisBitmark(false);
+        final List<byte[]> signatures = params.getSignatures();
+        assertEquals(expectedSignature.size(), signatures.size());
+        for (int i = 0, size = expectedSignature.size(); i < size; i++) {
+            assertArrayEquals(expectedSignature.get(i), signatures.get(i));
+        }
+    }
+
+    @Test
+    public void testSign_ManyItemsOnPool_SameOrderAsCallingThread() {
+        final IssuanceParams params = new IssuanceParams(
+                ASSET_ID,
+                ADDRESS1,
+                100
+        );
+        final ForkJoinPool pool = SigningPool.getPool();
+        final List<byte[]> sequential;
+        try {
+            SigningPool.setPool(null);
+            sequential = params.sign(KEY_PAIR_1);
+        } finally {
+            SigningPool.setPool(pool);
+        }
+        final List<byte[]> parallel = params.sign(KEY_PAIR_1);
+        assertEquals(200, parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertArrayEquals(sequential.get(i), parallel.get(i));
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("createValidIssuanceParamsJson")
     public void testToJson_ParamsIsSigned_ValidJsonIsReturn(
@@ -140,6 +190,17 @@ public class IssuanceParamsTest extends BaseTest {
         assertEquals(expectedJson, params.toJson());
     }
 
+    @ParameterizedTest
+    @MethodSource("createValidIssuanceParamsJson")
+    public void testWriteJson_ParamsIsSigned_SameJsonIsStreamed(
+            IssuanceParams params,
+            String expectedJson
+    ) throws IOException {
+        Buffer buffer = new Buffer();
+        params.writeJson(buffer);
+        assertEquals(expectedJson, buffer.readUtf8());
+    }
+
     @Test
     public void testConstructIssuanceParams_ValidParams_CorrectNonceIsGenerated() {
         final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1);
@@ -150,6 +211,43 @@ public class IssuanceParamsTest extends BaseTest {
         assertEquals(1, noncesPair.second().length);
     }
 
+    @Test
+    public void testConstructIssuanceParamsWithNonces_ValidNonces_GenesisTakesFirst() {
+        final int[] nonces = {7, 8, 9};
+        final IssuanceParams params = new IssuanceParams(
+                ASSET_ID,
+                ADDRESS1,
+                nonces
+        );
+        final Pair<int[], int[]> noncesPair = params.getNoncesPair();
+        assertArrayEquals(new int[]{0, 8, 9}, noncesPair.first());
+        assertArrayEquals(nonces, noncesPair.second());
+    }
+
+    @ParameterizedTest
+    @MethodSource("createInvalidNonces")
+    public void testConstructIssuanceParamsWithNonces_InvalidNonces_ErrorIsThrow(
+            int[] nonces
+    ) {
+        assertThrows(
+                ValidateException.class,
+                () -> new IssuanceParams(ASSET_ID, ADDRESS1, nonces)
+        );
+    }
+
+    @Test
+    public void testNextNonces_ManyBatches_NoneRepeated() {
+        final NonceGenerator generator = new NonceGenerator();
+        final IntHashSet seen = new IntHashSet();
+        for (int i = 0; i < 100; i++) {
+            for (int nonce : generator.next(1000)) {
+                assertTrue(nonce > 0);
+                assertTrue(seen.add(nonce));
+            }
+        }
+        assertEquals(100000, seen.size());
+    }
+
     @Test
     public void testSignParams__CorrectSignatureReturn() {
         final int quantity = 2;
@@ -170,6 +268,16 @@ public class IssuanceParamsTest extends BaseTest {
         );
     }
 
+    private static Stream<int[]> createInvalidNonces() {
+        return Stream.of(
+                null,
+                new int[0],
+                new int[]{1, 0},
+                new int[]{1, -2},
+                new int[]{3, 4, 3}
+        );
+    }
+
     private static Stream<Arguments> createValidAssetIdNonceSignatures() {
         final List<byte[]> signatures1 = new ArrayList<byte[]>() {{
             add(HEX.decode(
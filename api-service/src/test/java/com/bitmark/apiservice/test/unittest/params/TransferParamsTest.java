@@ -6,6 +6,7 @@
  */
 package com.bitmark.apiservice.test.unittest.params;
 
+import com.bitmark.apiservice.metrics.MetricsRegistry;
 import com.bitmark.apiservice.params.TransferParams;
 import com.bitmark.apiservice.test.BaseTest;
 import com.bitmark.apiservice.utils.Address;
@@ -177,4 +178,31 @@ public class TransferParamsTest extends BaseTest {
         assertThrows(ValidateException.class, () -> params.sign(KEY_PAIR_1));
     }
 
+    @Test
+    public void testSignParams_ValidParams_TimersOfClassRecorded() {
+        final MetricsRegistry metrics = MetricsRegistry.getDefault();
+        final long packed = metrics.timer("TransferParams.pack")
+                                   .snapshot()
+                                   .getCount();
+        final long signed = metrics.timer("TransferParams.sign")
+                                   .snapshot()
+                                   .getCount();
+        final TransferParams params = new TransferParams(
+                ADDRESS1,
+                "20df48ef393aa1f62d9ea6ff496fb4b5c9029eefc1dc888d8df7b03c1794ee82"
+        );
+
+        params.sign(KEY_PAIR_1);
+        params.sign(KEY_PAIR_1);
+
+        assertEquals(
+                packed + 2,
+                metrics.timer("TransferParams.pack").snapshot().getCount()
+        );
+        assertEquals(
+                signed + 2,
+                metrics.timer("TransferParams.sign").snapshot().getCount()
+        );
+    }
+
 }
@@ -0,0 +1,80 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.tracing;
+
+import com.bitmark.apiservice.middleware.Converter;
+import com.bitmark.apiservice.tracing.Phase;
+import com.bitmark.apiservice.tracing.Span;
+import com.bitmark.apiservice.tracing.Tracing;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import okhttp3.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TracingTest {
+
+    private static final String ASSET = "{\"asset\":{\"id\":\"1\",\"status\":\"confirmed\"}}";
+
+    @AfterEach
+    public void afterEach() {
+        Tracing.setTracer(null);
+    }
+
+    @Test
+    public void testBegin_NoTracer_Noop() {
+        assertFalse(Tracing.isEnabled());
+        assertSame(Span.NOOP, Tracing.begin(Phase.SIGN, "TransferParams"));
+    }
+
+    @Test
+    public void testBegin_TracerSet_SpanEnded() {
+        List<String> ended = new ArrayList<>();
+        Tracing.setTracer((phase, name) -> size -> ended.add(phase + " " + name + " " + size));
+
+        Tracing.begin(Phase.PACK, "TransferParams").end(120);
+
+        assertTrue(Tracing.isEnabled());
+        assertEquals(1, ended.size());
+        assertEquals("PACK TransferParams 120", ended.get(0));
+    }
+
+    @Test
+    public void testDecode_TracerSet_DecodeSpanWithEndpoint() {
+        List<String> ended = new ArrayList<>();
+        Tracing.setTracer((phase, name) -> size -> ended.add(phase + " " + name + " " + size));
+
+        Converter.toAssetRecord(new Callback1<AssetRecord>() {
+            @Override
+            public void onSuccess(AssetRecord data) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                fail(throwable);
+            }
+        }).onSuccess(newResponse("https://api.test.bitmark.com/v3/assets/1", ASSET));
+
+        assertEquals(1, ended.size());
+        assertEquals("DECODE GET /v3/assets/{id} " + ASSET.length(), ended.get(0));
+    }
+
+    private static Response newResponse(String url, String body) {
+        return new Response.Builder()
+                .request(new Request.Builder().url(url).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(MediaType.parse("application/json"), body))
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.configuration.ConcurrencyLimitPolicy;
+import com.bitmark.apiservice.utils.AdaptiveLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveLimiterTest {
+
+    private static final long RTT = 1_000_000;
+
+    @Test
+    public void testAcquire_OverLimit_TaskIsQueued() {
+        AdaptiveLimiter limiter = newLimiter(2, Integer.MAX_VALUE);
+        AtomicInteger started = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquire(started::incrementAndGet));
+        }
+        assertEquals(2, started.get());
+        assertEquals(1, limiter.getQueued());
+
+        limiter.release(RTT, false);
+        assertEquals(3, started.get());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getQueuedCount());
+    }
+
+    @Test
+    public void testAcquire_QueueFull_TaskIsRejected() {
+        AdaptiveLimiter limiter = newLimiter(1, 0);
+
+        assertTrue(limiter.acquire(() -> {
+        }));
+        assertFalse(limiter.acquire(() -> {
+        }));
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testRelease_Drop_LimitDecreases() {
+        AdaptiveLimiter limiter = newLimiter(10, Integer.MAX_VALUE);
+
+        limiter.acquire(() -> {
+        });
+        limiter.release(RTT, true);
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    public void testRelease_HighLatency_LimitDecreases() {
+        AdaptiveLimiter limiter = newLimiter(10, Integer.MAX_VALUE);
+
+        limiter.acquire(() -> {
+        });
+        limiter.release(RTT, false);
+        limiter.acquire(() -> {
+        });
+        limiter.release(10 * RTT, false);
+        assertTrue(limiter.getLimit() < 10);
+    }
+
+    @Test
+    public void testRelease_HealthyAndUsed_LimitGrowsToMax() {
+        AdaptiveLimiter limiter = newLimiter(2, Integer.MAX_VALUE);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(() -> {
+            });
+            limiter.acquire(() -> {
+            });
+            limiter.release(RTT, false);
+            limiter.release(RTT, false);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    private static AdaptiveLimiter newLimiter(int initialLimit, int maxQueued) {
+        int maxLimit = Math.max(4, initialLimit);
+        return new AdaptiveLimiter(
+                ConcurrencyLimitPolicy.builder()
+                        .withLimits(initialLimit, 1, maxLimit)
+                        .withMaxQueued(maxQueued)
+                        .build(),
+                maxLimit
+        );
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.configuration.Network;
+import com.bitmark.apiservice.test.BaseTest;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.ArrayUtil;
+import com.bitmark.apiservice.utils.PackWriter;
+import com.bitmark.apiservice.utils.error.InvalidAddressException;
+import org.junit.jupiter.api.Test;
+
+import static com.bitmark.apiservice.test.unittest.DataProvider.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AddressTest extends BaseTest {
+
+    @Test
+    public void testFromAccountNumber_KnownAccountNumber_SameInstanceReturned() {
+        String accountNumber = ADDRESS1.getAddress();
+        Address address = Address.fromAccountNumber(accountNumber);
+
+        assertSame(address, Address.fromAccountNumber(accountNumber));
+        assertEquals(accountNumber, address.getAddress());
+    }
+
+    @Test
+    public void testGetAddress_NewAddress_InternedAndRoundTrip() {
+        Address address = Address.getDefault(
+                KEY_PAIR_2.publicKey(),
+                Network.TEST_NET
+        );
+        String accountNumber = address.getAddress();
+
+        assertSame(accountNumber, address.getAddress());
+        assertSame(address, Address.fromAccountNumber(accountNumber));
+    }
+
+    @Test
+    public void testFromAccountNumber_InvalidChecksum_ErrorIsThrow() {
+        String accountNumber = ADDRESS1.getAddress();
+        char last = accountNumber.charAt(accountNumber.length() - 1);
+        String invalid = accountNumber.substring(
+                0,
+                accountNumber.length() - 1
+        ) + (last == 'a' ? 'b' : 'a');
+
+        assertThrows(
+                InvalidAddressException.class,
+                () -> Address.fromAccountNumber(invalid)
+        );
+    }
+
+    @Test
+    public void testPack_ModifiedResult_AddressUnchanged() {
+        byte[] packed = ADDRESS1.pack();
+        packed[0] = (byte) ~packed[0];
+
+        assertFalse(ArrayUtil.equals(packed, ADDRESS1.pack()));
+    }
+
+    @Test
+    public void testWriteAddress_AnyAddress_LengthPrefixedPack() {
+        byte[] packed = ADDRESS1.pack();
+        PackWriter writer = new PackWriter();
+        writer.writeAddress(ADDRESS1);
+
+        assertArrayEquals(
+                new PackWriter().writeLengthPrefixed(packed).toByteArray(),
+                writer.toByteArray()
+        );
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.callback.Callable1;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.bitmark.apiservice.utils.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AwaitilityTest {
+
+    @Test
+    public void testAwait_AsyncValue_ValueIsReturn() throws Throwable {
+        String value = await((Callable1<String>) callback -> new Thread(() -> callback
+                .onSuccess("value")).start());
+        assertEquals("value", value);
+    }
+
+    @Test
+    public void testAwait_NullValue_NullIsReturn() throws Throwable {
+        Object value = await((Callable1<Object>) callback -> callback.onSuccess(
+                null));
+        assertNull(value);
+    }
+
+    @Test
+    public void testAwait_SyncCall_NullIsReturn() throws Throwable {
+        Object value = await(() -> null);
+        assertNull(value);
+    }
+
+    @Test
+    public void testAwait_Error_ErrorIsThrown() {
+        IllegalStateException error = new IllegalStateException("error");
+        Throwable thrown = assertThrows(
+                IllegalStateException.class,
+                () -> await((Callable1<String>) callback -> callback.onError(
+                        error))
+        );
+        assertSame(error, thrown);
+    }
+
+    @Test
+    public void testAwait_NoCallback_TimeoutExceptionIsThrown() {
+        long start = System.currentTimeMillis();
+        assertThrows(
+                TimeoutException.class,
+                () -> await((Callable1<String>) callback -> {
+                }, 200L)
+        );
+        assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+
+    @Test
+    public void testAwait_CallbackDeliveredTwice_FirstResultIsReturn()
+            throws Throwable {
+        String value = await((Callable1<String>) callback -> {
+            callback.onSuccess("first");
+            callback.onSuccess("second");
+            callback.onError(new IllegalStateException());
+        });
+        assertEquals("first", value);
+    }
+
+    @Test
+    public void testAwait_ThreadInterrupted_InterruptedExceptionIsThrown()
+            throws InterruptedException {
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                await((Callable1<String>) callback -> {
+                });
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        thread.start();
+        thread.interrupt();
+        thread.join(5000);
+        assertTrue(thrown.get() instanceof InterruptedException);
+    }
+}
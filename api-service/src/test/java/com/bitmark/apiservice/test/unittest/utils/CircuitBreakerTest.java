@@ -0,0 +1,65 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.configuration.CircuitBreakerPolicy;
+import com.bitmark.apiservice.utils.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(
+            CircuitBreakerPolicy.builder()
+                    .withFailureThreshold(2)
+                    .withOpenDuration(1000)
+                    .build());
+
+    @Test
+    public void testTryAcquire_FailuresBelowThreshold_Allowed() {
+        circuitBreaker.onFailure(0);
+        assertTrue(circuitBreaker.tryAcquire(0));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testTryAcquire_ThresholdReached_Rejected() {
+        circuitBreaker.onFailure(0);
+        circuitBreaker.onFailure(0);
+        assertFalse(circuitBreaker.tryAcquire(999));
+    }
+
+    @Test
+    public void testTryAcquire_OpenDurationPassed_OneTrialAllowed() {
+        circuitBreaker.onFailure(0);
+        circuitBreaker.onFailure(0);
+        assertTrue(circuitBreaker.tryAcquire(1000));
+        assertFalse(circuitBreaker.tryAcquire(1000));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testOnSuccess_TrialSucceeded_Closed() {
+        circuitBreaker.onFailure(0);
+        circuitBreaker.onFailure(0);
+        circuitBreaker.tryAcquire(1000);
+        circuitBreaker.onSuccess();
+        assertTrue(circuitBreaker.tryAcquire(1000));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testOnFailure_TrialFailed_OpenAgain() {
+        circuitBreaker.onFailure(0);
+        circuitBreaker.onFailure(0);
+        circuitBreaker.tryAcquire(1000);
+        circuitBreaker.onFailure(1000);
+        assertFalse(circuitBreaker.tryAcquire(1500));
+        assertTrue(circuitBreaker.tryAcquire(2000));
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.FutureUtils;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FutureUtilsTest {
+
+    @Test
+    public void testToFuture_Success_CompletedWithValue() throws Exception {
+        CompletableFuture<String> future =
+                FutureUtils.toFuture(callback -> callback.onSuccess("value"));
+
+        assertEquals("value", future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testToFuture_Error_CompletedExceptionally() {
+        NetworkException error = new NetworkException("Lost");
+        CompletableFuture<String> future =
+                FutureUtils.toFuture(callback -> callback.onError(error));
+
+        ExecutionException e =
+                assertThrows(ExecutionException.class, future::get);
+        assertSame(error, e.getCause());
+    }
+
+    @Test
+    public void testToFuture_Thrown_CompletedExceptionally() {
+        IllegalStateException error = new IllegalStateException("Thrown");
+        CompletableFuture<String> future = FutureUtils.toFuture(callback -> {
+            throw error;
+        });
+
+        ExecutionException e =
+                assertThrows(ExecutionException.class, future::get);
+        assertSame(error, e.getCause());
+    }
+
+    @Test
+    public void testToCallback_Completed_SuccessDelivered() throws Exception {
+        Result<String> result = new Result<>();
+
+        FutureUtils.toCallback(
+                CompletableFuture.completedFuture("value"),
+                result
+        );
+
+        assertEquals("value", result.future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testToCallback_DependentFails_UnwrappedErrorDelivered() {
+        NetworkException error = new NetworkException("Lost");
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(error);
+        Result<String> result = new Result<>();
+
+        // A dependent stage fails with the error wrapped
+        FutureUtils.toCallback(failed.thenApply(value -> value), result);
+
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> result.future.get(5, TimeUnit.SECONDS)
+        );
+        assertSame(error, e.getCause());
+    }
+
+    @Test
+    public void testUnwrap_CompletionException_CauseReturned() {
+        NetworkException error = new NetworkException("Lost");
+
+        assertSame(error, FutureUtils.unwrap(new CompletionException(error)));
+        assertSame(error, FutureUtils.unwrap(error));
+    }
+
+    private static final class Result<T> implements Callback1<T> {
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        @Override
+        public void onSuccess(T data) {
+            future.complete(data);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+    }
+}
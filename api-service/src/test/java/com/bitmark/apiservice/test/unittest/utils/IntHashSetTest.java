@@ -0,0 +1,56 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.ArrayUtil;
+import com.bitmark.apiservice.utils.IntHashSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntHashSetTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE})
+    public void testAdd_SameValueTwice_AddedOnce(int value) {
+        IntHashSet set = new IntHashSet();
+
+        assertFalse(set.contains(value));
+        assertTrue(set.add(value));
+        assertFalse(set.add(value));
+        assertTrue(set.contains(value));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testAdd_OverCapacity_AllValuesKept() {
+        IntHashSet set = new IntHashSet(1);
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(set.add(i * 31));
+        }
+
+        assertEquals(100000, set.size());
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(set.contains(i * 31));
+        }
+        assertFalse(set.contains(1));
+    }
+
+    @Test
+    public void testIsDuplicate_LargeArray_Detected() {
+        int[] values = new int[200000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        assertFalse(ArrayUtil.isDuplicate(values));
+
+        values[values.length - 1] = 1;
+        assertTrue(ArrayUtil.isDuplicate(values));
+    }
+}
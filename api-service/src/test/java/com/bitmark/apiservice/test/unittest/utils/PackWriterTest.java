@@ -0,0 +1,84 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.PackWriter;
+import com.bitmark.cryptography.crypto.encoder.VarInt;
+import com.bitmark.cryptography.error.ValidateException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackWriterTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 127, 128, 300, 16384, Integer.MAX_VALUE, -1})
+    public void testWriteVarInt_AnyValue_SameAsVarInt(int value) {
+        PackWriter writer = new PackWriter(1);
+        writer.writeVarInt(value);
+        assertArrayEquals(
+                VarInt.writeUnsignedVarInt(value),
+                writer.toByteArray()
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "name", "café", "漢字", "😀", "a\ud83db"})
+    public void testWriteLengthPrefixed_String_Utf8WithLength(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        PackWriter writer = new PackWriter();
+        writer.writeLengthPrefixed(value);
+        byte[] packed = writer.toByteArray();
+
+        assertEquals(utf8.length, VarInt.readUnsignedVarInt(packed));
+        assertArrayEquals(
+                utf8,
+                Arrays.copyOfRange(packed, 1, packed.length)
+        );
+    }
+
+    @Test
+    public void testWriteLengthPrefixedHex_OddDigits_LeadingZero() {
+        PackWriter writer = new PackWriter();
+        writer.writeLengthPrefixedHex("abc").writeLengthPrefixedHex("0A0b");
+
+        assertEquals("020abc020a0b", HEX.encode(writer.toByteArray()));
+    }
+
+    @Test
+    public void testWriteLengthPrefixedHex_InvalidDigit_ThrowsException() {
+        assertThrows(
+                ValidateException.InvalidHex.class,
+                () -> new PackWriter().writeLengthPrefixedHex("0g")
+        );
+    }
+
+    @Test
+    public void testWrite_OverCapacity_BufferGrown() {
+        byte[] bytes = new byte[1000];
+        PackWriter writer = new PackWriter(4);
+        writer.writeVarInt(0x02).writeLengthPrefixed(bytes).writeByte(0x00);
+
+        assertEquals(1 + 2 + 1000 + 1, writer.size());
+        assertTrue(writer.buffer().length >= writer.size());
+    }
+
+    @Test
+    public void testLocal_SameThread_ReusedAndEmptied() {
+        PackWriter writer = PackWriter.local();
+        writer.writeVarInt(0x04);
+
+        assertSame(writer, PackWriter.local());
+        assertEquals(0, writer.size());
+    }
+}
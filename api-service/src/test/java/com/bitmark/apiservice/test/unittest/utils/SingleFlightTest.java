@@ -0,0 +1,133 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.SingleFlight;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testExecute_ConcurrentSameKey_OneCallIsExecuted() {
+        SingleFlight singleFlight = new SingleFlight();
+        List<Callback1<Object>> pending = new ArrayList<>();
+        List<Object> results = new ArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            singleFlight.execute("key", callback -> {
+                calls.incrementAndGet();
+                pending.add(callback);
+            }, new RecordingCallback(results));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.getInFlightCount());
+
+        Object value = new Object();
+        pending.get(0).onSuccess(value);
+        assertEquals(3, results.size());
+        results.forEach(result -> assertSame(value, result));
+        assertEquals(1, singleFlight.getExecutedCount());
+        assertEquals(2, singleFlight.getCoalescedCount());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void testExecute_DifferentKeys_EachCallIsExecuted() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute("a", callback -> calls.incrementAndGet(),
+                new RecordingCallback(new ArrayList<>())
+        );
+        singleFlight.execute("b", callback -> calls.incrementAndGet(),
+                new RecordingCallback(new ArrayList<>())
+        );
+        assertEquals(2, calls.get());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    public void testExecute_CompletedKey_NewCallIsExecuted() {
+        SingleFlight singleFlight = new SingleFlight();
+        List<Object> results = new ArrayList<>();
+
+        singleFlight.execute("key", callback -> callback.onSuccess("first"),
+                new RecordingCallback(results)
+        );
+        singleFlight.execute("key", callback -> callback.onSuccess("second"),
+                new RecordingCallback(results)
+        );
+        assertEquals(2, singleFlight.getExecutedCount());
+        assertEquals("second", results.get(1));
+    }
+
+    @Test
+    public void testExecute_CallThrows_ErrorIsShared() {
+        SingleFlight singleFlight = new SingleFlight();
+        List<Object> results = new ArrayList<>();
+        IllegalStateException error = new IllegalStateException("error");
+
+        singleFlight.execute("key", callback -> {
+            throw error;
+        }, new RecordingCallback(results));
+        assertSame(error, results.get(0));
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void testExecute_CallbackThrows_OtherCallbacksAreCalled() {
+        SingleFlight singleFlight = new SingleFlight();
+        List<Callback1<Object>> pending = new ArrayList<>();
+        List<Object> results = new ArrayList<>();
+
+        singleFlight.execute("key", pending::add, new Callback1<Object>() {
+            @Override
+            public void onSuccess(Object data) {
+                throw new IllegalStateException("callback");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        });
+        singleFlight.execute("key", pending::add,
+                new RecordingCallback(results)
+        );
+        assertThrows(
+                IllegalStateException.class,
+                () -> pending.get(0).onSuccess("value")
+        );
+        assertEquals("value", results.get(0));
+    }
+
+    private static class RecordingCallback implements Callback1<Object> {
+
+        private final List<Object> results;
+
+        RecordingCallback(List<Object> results) {
+            this.results = results;
+        }
+
+        @Override
+        public void onSuccess(Object data) {
+            results.add(data);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            results.add(throwable);
+        }
+    }
+}
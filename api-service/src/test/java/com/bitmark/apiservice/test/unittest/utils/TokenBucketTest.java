@@ -0,0 +1,53 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testReserve_WithinBurst_NoWait() {
+        TokenBucket bucket = new TokenBucket(10, 3, 0);
+        assertEquals(0, bucket.reserve(0, -1));
+        assertEquals(0, bucket.reserve(0, -1));
+        assertEquals(0, bucket.reserve(0, -1));
+    }
+
+    @Test
+    public void testReserve_OverBudget_QueuedAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+        assertEquals(0, bucket.reserve(0, -1));
+        assertEquals(SECOND / 10, bucket.reserve(0, -1));
+        assertEquals(2 * SECOND / 10, bucket.reserve(0, -1));
+    }
+
+    @Test
+    public void testReserve_AfterIdle_RefilledUpToBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+        bucket.reserve(0, -1);
+        bucket.reserve(0, -1);
+        assertEquals(0, bucket.reserve(10 * SECOND, -1));
+        assertEquals(0, bucket.reserve(10 * SECOND, -1));
+        assertEquals(SECOND / 10, bucket.reserve(10 * SECOND, -1));
+    }
+
+    @Test
+    public void testReserve_WaitOverMaxWait_RejectedWithoutToken() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0);
+        assertEquals(0, bucket.reserve(0, 0));
+        assertEquals(-1, bucket.reserve(0, SECOND / 2));
+        assertEquals(SECOND, bucket.reserve(0, SECOND));
+    }
+}
@@ -7,6 +7,8 @@
 package com.bitmark.sdk.features;
 
 import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.paging.PageCursor;
 import com.bitmark.apiservice.params.RegistrationParams;
 import com.bitmark.apiservice.params.query.AssetQueryBuilder;
 import com.bitmark.apiservice.response.RegistrationResponse;
@@ -14,6 +16,7 @@ import com.bitmark.apiservice.utils.callback.Callback1;
 import com.bitmark.apiservice.utils.record.AssetRecord;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class Asset {
 
@@ -35,4 +38,20 @@ public class Asset {
         ApiService.getInstance().listAssets(builder.build(), callback);
     }
 
+    public static CompletableFuture<RegistrationResponse> register(RegistrationParams params) {
+        return AsyncApiService.getInstance().registerAsset(params);
+    }
+
+    public static CompletableFuture<AssetRecord> get(String assetId) {
+        return AsyncApiService.getInstance().getAsset(assetId);
+    }
+
+    public static CompletableFuture<List<AssetRecord>> list(AssetQueryBuilder builder) {
+        return AsyncApiService.getInstance().listAssets(builder.build());
+    }
+
+    public static PageCursor<AssetRecord> paginate(AssetQueryBuilder builder) {
+        return PageCursor.assets(ApiService.getInstance(), builder);
+    }
+
 }
@@ -7,6 +7,8 @@
 package com.bitmark.sdk.features;
 
 import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.paging.PageCursor;
 import com.bitmark.apiservice.params.*;
 import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
 import com.bitmark.apiservice.response.GetBitmarkResponse;
@@ -18,6 +20,9 @@ import com.bitmark.apiservice.utils.record.ShareGrantRecord;
 import com.bitmark.apiservice.utils.record.ShareRecord;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
 
 public class Bitmark {
 
@@ -28,6 +33,55 @@ public class Bitmark {
         ApiService.getInstance().issueBitmark(params, callback);
     }
 
+    public static void issue(
+            Account issuer,
+            String assetId,
+            int quantity,
+            Callback1<Long> callback
+    ) {
+        issue(
+                issuer,
+                assetId,
+                quantity,
+                IssuanceOptions.builder().build(),
+                callback
+        );
+    }
+
+    /**
+     * Issue a large quantity of bitmarks of an asset. They are issued in
+     * batches, a few at once, so that neither the nonces, the signatures
+     * nor the resulting bitmarks of the whole quantity are held in memory.
+     *
+     * @param issuer   the issuer and owner of the bitmarks
+     * @param assetId  the registered asset
+     * @param quantity number of bitmarks to issue
+     * @param options  the batch size, the parallelism and the listener
+     *                 receiving the ids of the issued bitmarks
+     * @param callback receives the number of issued bitmarks, or the first
+     *                 error, on the callback executor of the configuration.
+     *                 The batches issued before the error are kept and have
+     *                 been handed to the listener.
+     */
+    public static void issue(
+            Account issuer,
+            String assetId,
+            int quantity,
+            IssuanceOptions options,
+            Callback1<Long> callback
+    ) {
+        checkValid(() -> issuer != null, "issuer is null");
+        checkValid(() -> quantity > 0, "quantity must be greater than zero");
+        checkValid(() -> options != null, "options is null");
+        new IssuanceEngine(
+                ApiService.getInstance(),
+                issuer,
+                assetId,
+                quantity,
+                options
+        ).start(callback);
+    }
+
     public static void transfer(
             TransferParams params,
             Callback1<String> callback
@@ -119,4 +173,86 @@ public class Bitmark {
         ApiService.getInstance().listShareOffer(from, to, callback);
     }
 
+    public static CompletableFuture<List<BitmarkRecord>> issue(
+            IssuanceParams params
+    ) {
+        return AsyncApiService.getInstance().issueBitmark(params);
+    }
+
+    public static CompletableFuture<String> transfer(TransferParams params) {
+        return AsyncApiService.getInstance().transferBitmark(params);
+    }
+
+    public static CompletableFuture<String> offer(TransferOfferParams params) {
+        return AsyncApiService.getInstance().offerBitmark(params);
+    }
+
+    public static CompletableFuture<String> respond(
+            TransferResponseParams params
+    ) {
+        return AsyncApiService.getInstance().respondBitmarkOffer(params);
+    }
+
+    public static CompletableFuture<GetBitmarkResponse> get(
+            String bitmarkId,
+            boolean loadAsset
+    ) {
+        return AsyncApiService.getInstance().getBitmark(bitmarkId, loadAsset);
+    }
+
+    public static CompletableFuture<GetBitmarkResponse> get(String bitmarkId) {
+        return get(bitmarkId, false);
+    }
+
+    public static CompletableFuture<GetBitmarkResponse> getWithAsset(
+            String bitmarkId
+    ) {
+        return get(bitmarkId, true);
+    }
+
+    public static CompletableFuture<GetBitmarksResponse> list(
+            BitmarkQueryBuilder builder
+    ) {
+        return AsyncApiService.getInstance().listBitmarks(builder.build());
+    }
+
+    public static PageCursor<BitmarkRecord> paginate(BitmarkQueryBuilder builder) {
+        return PageCursor.bitmarks(ApiService.getInstance(), builder);
+    }
+
+    public static CompletableFuture<Pair<String, String>> createShare(
+            ShareParams params
+    ) {
+        return AsyncApiService.getInstance().createShare(params);
+    }
+
+    public static CompletableFuture<String> grantShare(
+            ShareGrantingParams params
+    ) {
+        return AsyncApiService.getInstance().grantShare(params);
+    }
+
+    public static CompletableFuture<String> respondShareOffer(
+            GrantResponseParams params
+    ) {
+        return AsyncApiService.getInstance().respondShareOffer(params);
+    }
+
+    public static CompletableFuture<ShareRecord> getShare(String shareId) {
+        return AsyncApiService.getInstance().getShare(shareId);
+    }
+
+    public static CompletableFuture<List<ShareRecord>> listShares(
+            String owner
+    ) {
+        return AsyncApiService.getInstance().listShares(owner);
+    }
+
+    public static CompletableFuture<List<ShareGrantRecord>> listShareOffer(
+            String from,
+            String to
+    ) {
+        return AsyncApiService.getInstance().listShareOffer(from, to);
+    }
+
 }
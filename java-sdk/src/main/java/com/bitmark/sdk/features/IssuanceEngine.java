@@ -0,0 +1,163 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.features;
+
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.BitmarkApi;
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.params.NonceGenerator;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues many bitmarks of an asset in batches the API service accepts.
+ * Each batch is packed, signed, sent and handed to the listener before its
+ * memory is released, and a bounded number of batches is in flight at
+ * once, so the memory used does not grow with the quantity apart from the
+ * nonces already used.
+ */
+class IssuanceEngine {
+
+    private final AsyncApiService asyncApi;
+
+    private final Account issuer;
+
+    private final String assetId;
+
+    private final int quantity;
+
+    private final IssuanceOptions options;
+
+    private final Semaphore permits;
+
+    private final AtomicLong issued = new AtomicLong();
+
+    private volatile Throwable failure;
+
+    IssuanceEngine(
+            BitmarkApi api,
+            Account issuer,
+            String assetId,
+            int quantity,
+            IssuanceOptions options
+    ) {
+        this.asyncApi = new AsyncApiService(api);
+        this.issuer = issuer;
+        this.assetId = assetId;
+        this.quantity = quantity;
+        this.options = options;
+        this.permits = new Semaphore(options.getParallelism());
+    }
+
+    void start(Callback1<Long> callback) {
+        final Executor executor = GlobalConfiguration.callbackExecutor();
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } catch (Throwable e) {
+                onFailure(e);
+            }
+            Runnable delivery = failure != null
+                                ? () -> callback.onError(failure)
+                                : () -> callback.onSuccess(issued.get());
+            try {
+                executor.execute(delivery);
+            } catch (RejectedExecutionException e) {
+                delivery.run();
+            }
+        }, "Bitmark Issuance");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() throws InterruptedException {
+        final int parallelism = options.getParallelism();
+        final Address address = issuer.toAddress();
+        // Shared by the batches so that no bitmark id is issued twice
+        final NonceGenerator nonces = new NonceGenerator(quantity);
+        int remaining = quantity;
+        boolean first = true;
+        try {
+            while (failure == null && remaining > 0) {
+                int size = Math.min(options.getBatchSize(), remaining);
+                remaining -= size;
+                // The first batch may carry the genesis bitmark, the others
+                // wait for it to know they do not
+                int required = first ? parallelism : 1;
+                first = false;
+                permits.acquire(required);
+                if (failure != null) {
+                    // Failed while waiting for the permits
+                    permits.release(required);
+                    break;
+                }
+                CompletableFuture<List<BitmarkRecord>> future;
+                try {
+                    IssuanceParams params = new IssuanceParams(
+                            assetId,
+                            address,
+                            nonces.next(size)
+                    );
+                    params.signLazily(issuer.getAuthKeyPair());
+                    future = asyncApi.issueBitmark(params);
+                } catch (Throwable e) {
+                    future = new CompletableFuture<>();
+                    future.completeExceptionally(e);
+                }
+                future.whenComplete((bitmarks, throwable) -> {
+                    try {
+                        if (throwable != null) {
+                            onFailure(throwable);
+                        } else {
+                            onIssued(bitmarks);
+                        }
+                    } catch (Throwable e) {
+                        // Thrown by the issued listener
+                        onFailure(e);
+                    } finally {
+                        permits.release(required);
+                    }
+                });
+            }
+        } finally {
+            // Wait for the batches in flight
+            permits.acquire(parallelism);
+        }
+    }
+
+    private void onIssued(List<BitmarkRecord> bitmarks) {
+        List<String> bitmarkIds = new ArrayList<>(bitmarks.size());
+        for (BitmarkRecord bitmark : bitmarks) {
+            bitmarkIds.add(bitmark.getId());
+        }
+        issued.addAndGet(bitmarkIds.size());
+        IssuanceOptions.IssuedListener listener = options.getIssuedListener();
+        if (listener != null) {
+            listener.onIssued(bitmarkIds);
+        }
+    }
+
+    private synchronized void onFailure(Throwable throwable) {
+        if (failure == null) {
+            failure = throwable instanceof CompletionException
+                              && throwable.getCause() != null
+                      ? throwable.getCause()
+                      : throwable;
+        }
+    }
+}
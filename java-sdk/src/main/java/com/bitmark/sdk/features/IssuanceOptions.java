@@ -0,0 +1,102 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.features;
+
+import java.util.List;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Options of {@link Bitmark#issue(Account, String, int, IssuanceOptions, com.bitmark.apiservice.utils.callback.Callback1)}
+ */
+public class IssuanceOptions {
+
+    // The most bitmarks the API service accepts in one issue request
+    static final int MAX_BATCH_SIZE = 100;
+
+    public interface IssuedListener {
+
+        /**
+         * Called each time a batch of bitmarks is issued, possibly from
+         * several threads at once
+         *
+         * @param bitmarkIds the ids of the bitmarks of the batch
+         */
+        void onIssued(List<String> bitmarkIds);
+    }
+
+    private final int batchSize;
+
+    private final int parallelism;
+
+    private final IssuedListener issuedListener;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private IssuanceOptions(Builder builder) {
+        this.batchSize = builder.batchSize;
+        this.parallelism = builder.parallelism;
+        this.issuedListener = builder.issuedListener;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public IssuedListener getIssuedListener() {
+        return issuedListener;
+    }
+
+    public static final class Builder {
+
+        private int batchSize = MAX_BATCH_SIZE;
+
+        private int parallelism = 4;
+
+        private IssuedListener issuedListener;
+
+        Builder() {
+        }
+
+        /**
+         * @param batchSize number of bitmarks issued by each request, at
+         *                  most 100
+         */
+        public Builder withBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param parallelism maximum number of batches being issued at once
+         */
+        public Builder withParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withIssuedListener(IssuedListener issuedListener) {
+            this.issuedListener = issuedListener;
+            return this;
+        }
+
+        public IssuanceOptions build() {
+            checkValid(
+                    () -> batchSize > 0 && batchSize <= MAX_BATCH_SIZE,
+                    "batch size must be between 1 and " + MAX_BATCH_SIZE
+            );
+            checkValid(() -> parallelism > 0, "parallelism must be positive");
+            return new IssuanceOptions(this);
+        }
+    }
+}
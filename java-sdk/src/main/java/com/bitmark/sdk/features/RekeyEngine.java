@@ -0,0 +1,257 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.features;
+
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.BitmarkApi;
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.paging.PageCursor;
+import com.bitmark.apiservice.params.TransferOfferParams;
+import com.bitmark.apiservice.params.TransferResponseParams;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.OfferRecord;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the bitmarks of an account and transfers each of them to another
+ * account with an offer and an accepting response. A bounded number of
+ * bitmarks is transferred at once, and every transferred bitmark is
+ * appended to the checkpoint file so that a later run skips it.
+ */
+class RekeyEngine {
+
+    private final BitmarkApi api;
+
+    private final AsyncApiService asyncApi;
+
+    private final Account from;
+
+    private final Account to;
+
+    private final RekeyOptions options;
+
+    private final Semaphore permits;
+
+    private final List<String> txIds = Collections.synchronizedList(
+            new ArrayList<>());
+
+    private final AtomicLong transferred = new AtomicLong();
+
+    // Bitmark id to transaction id of the bitmarks of the checkpoint
+    private final Map<String, String> checkpointed = new LinkedHashMap<>();
+
+    private volatile Throwable failure;
+
+    private Writer checkpoint;
+
+    RekeyEngine(
+            BitmarkApi api,
+            Account from,
+            Account to,
+            RekeyOptions options
+    ) {
+        this.api = api;
+        this.asyncApi = new AsyncApiService(api);
+        this.from = from;
+        this.to = to;
+        this.options = options;
+        this.permits = new Semaphore(options.getParallelism());
+    }
+
+    void start(Callback1<List<String>> callback) {
+        final Executor executor = GlobalConfiguration.callbackExecutor();
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } catch (Throwable e) {
+                onFailure(e);
+            }
+            Runnable delivery = failure != null
+                                ? () -> callback.onError(failure)
+                                : () -> callback.onSuccess(new ArrayList<>(
+                                        txIds));
+            try {
+                executor.execute(delivery);
+            } catch (RejectedExecutionException e) {
+                delivery.run();
+            }
+        }, "Bitmark Rekey");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        File file = options.getCheckpointFile();
+        if (file != null) {
+            readCheckpoint(file);
+            checkpoint = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file, true),
+                    StandardCharsets.UTF_8
+            ));
+            if (!endsWithNewLine(file)) {
+                // Keep the records after a line cut by an interruption
+                checkpoint.write('\n');
+            }
+        }
+        txIds.addAll(checkpointed.values());
+        transferred.set(checkpointed.size());
+
+        BitmarkQueryBuilder builder = new BitmarkQueryBuilder().ownedBy(
+                from.getAccountNumber())
+                .to("earlier")
+                .limit(100)
+                .pending(false);
+        try (PageCursor<BitmarkRecord> bitmarks = PageCursor.bitmarks(
+                api,
+                builder
+        )) {
+            while (failure == null && bitmarks.hasNext()) {
+                BitmarkRecord bitmark = bitmarks.next();
+                if (checkpointed.containsKey(bitmark.getId())) {
+                    continue;
+                }
+                permits.acquire();
+                if (failure != null) {
+                    // Failed while waiting for the permit
+                    permits.release();
+                    break;
+                }
+                CompletableFuture<String> future;
+                try {
+                    future = transfer(bitmark);
+                } catch (Throwable e) {
+                    future = new CompletableFuture<>();
+                    future.completeExceptionally(e);
+                }
+                future.whenComplete((txId, throwable) -> {
+                    try {
+                        if (throwable != null) {
+                            onFailure(throwable);
+                        } else {
+                            onTransferred(bitmark.getId(), txId);
+                        }
+                    } catch (Throwable e) {
+                        // Thrown by the progress listener
+                        onFailure(e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } finally {
+            // Wait for the transfers in flight
+            permits.acquire(options.getParallelism());
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+        }
+    }
+
+    private CompletableFuture<String> transfer(BitmarkRecord bitmark) {
+        CompletableFuture<OfferRecord> offer;
+        OfferRecord existing = bitmark.getOffer();
+        if (existing != null && to.getAccountNumber().equals(existing.getTo())) {
+            // Offered by an interrupted run, only the response is missing
+            offer = CompletableFuture.completedFuture(existing);
+        } else {
+            TransferOfferParams params = new TransferOfferParams(
+                    to.toAddress(),
+                    bitmark.getHeadId()
+            );
+            params.sign(from.getAuthKeyPair());
+            offer = asyncApi.offerBitmark(params)
+                    .thenCompose(offerId -> asyncApi.getBitmark(
+                            bitmark.getId(),
+                            false
+                    ))
+                    .thenApply(res -> res.getBitmark().getOffer());
+        }
+        return offer.thenCompose(record -> {
+            TransferResponseParams params = TransferResponseParams.accept(
+                    record);
+            params.sign(to.getAuthKeyPair());
+            return asyncApi.respondBitmarkOffer(params);
+        });
+    }
+
+    private void onTransferred(String bitmarkId, String txId) {
+        txIds.add(txId);
+        if (checkpoint != null) {
+            try {
+                synchronized (this) {
+                    checkpoint.write(bitmarkId + "\t" + txId + "\n");
+                    checkpoint.flush();
+                }
+            } catch (IOException e) {
+                onFailure(e);
+                return;
+            }
+        }
+        RekeyOptions.ProgressListener listener = options.getProgressListener();
+        long count = transferred.incrementAndGet();
+        if (listener != null) {
+            listener.onProgress(count);
+        }
+    }
+
+    private synchronized void onFailure(Throwable throwable) {
+        if (failure == null) {
+            failure = throwable instanceof CompletionException
+                              && throwable.getCause() != null
+                      ? throwable.getCause()
+                      : throwable;
+        }
+    }
+
+    private static boolean endsWithNewLine(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            long length = input.length();
+            if (length == 0) {
+                return true;
+            }
+            input.seek(length - 1);
+            return input.read() == '\n';
+        }
+    }
+
+    private void readCheckpoint(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file),
+                StandardCharsets.UTF_8
+        ))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // A line cut by an interruption has no transaction id
+                int separator = line.indexOf('\t');
+                if (separator > 0 && separator < line.length() - 1) {
+                    checkpointed.put(
+                            line.substring(0, separator),
+                            line.substring(separator + 1)
+                    );
+                }
+            }
+        }
+    }
+}
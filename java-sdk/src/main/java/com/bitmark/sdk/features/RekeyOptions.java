@@ -0,0 +1,98 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.features;
+
+import java.io.File;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Options of {@link Migration#rekey(Account, Account, RekeyOptions, com.bitmark.apiservice.utils.callback.Callback1)}
+ */
+public class RekeyOptions {
+
+    public interface ProgressListener {
+
+        /**
+         * Called each time a bitmark is transferred, possibly from several
+         * threads at once
+         *
+         * @param transferred number of bitmarks transferred so far,
+         *                    including the ones of a resumed checkpoint
+         */
+        void onProgress(long transferred);
+    }
+
+    private final int parallelism;
+
+    private final File checkpointFile;
+
+    private final ProgressListener progressListener;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private RekeyOptions(Builder builder) {
+        this.parallelism = builder.parallelism;
+        this.checkpointFile = builder.checkpointFile;
+        this.progressListener = builder.progressListener;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    public static final class Builder {
+
+        private int parallelism = 8;
+
+        private File checkpointFile; // no checkpoint
+
+        private ProgressListener progressListener;
+
+        Builder() {
+        }
+
+        /**
+         * @param parallelism maximum number of bitmarks being transferred at
+         *                    once
+         */
+        public Builder withParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param checkpointFile file that records each transferred bitmark,
+         *                       so that an interrupted rekey run again with
+         *                       the same file resumes where it stopped
+         */
+        public Builder withCheckpointFile(File checkpointFile) {
+            this.checkpointFile = checkpointFile;
+            return this;
+        }
+
+        public Builder withProgressListener(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        public RekeyOptions build() {
+            checkValid(() -> parallelism > 0, "parallelism must be positive");
+            return new RekeyOptions(this);
+        }
+    }
+}
@@ -7,10 +7,15 @@
 package com.bitmark.sdk.features;
 
 import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.paging.PageCursor;
 import com.bitmark.apiservice.params.query.TransactionQueryBuilder;
 import com.bitmark.apiservice.response.GetTransactionResponse;
 import com.bitmark.apiservice.response.GetTransactionsResponse;
 import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.TransactionRecord;
+
+import java.util.concurrent.CompletableFuture;
 
 public class Transaction {
 
@@ -41,4 +46,27 @@ public class Transaction {
     ) {
         ApiService.getInstance().listTransactions(builder.build(), callback);
     }
+
+    public static CompletableFuture<GetTransactionResponse> get(String txId) {
+        return get(txId, false);
+    }
+
+    public static CompletableFuture<GetTransactionResponse> getWithAsset(String txId) {
+        return get(txId, true);
+    }
+
+    public static CompletableFuture<GetTransactionResponse> get(
+            String txId,
+            boolean loadAsset
+    ) {
+        return AsyncApiService.getInstance().getTransaction(txId, loadAsset);
+    }
+
+    public static CompletableFuture<GetTransactionsResponse> list(TransactionQueryBuilder builder) {
+        return AsyncApiService.getInstance().listTransactions(builder.build());
+    }
+
+    public static PageCursor<TransactionRecord> paginate(TransactionQueryBuilder builder) {
+        return PageCursor.transactions(ApiService.getInstance(), builder);
+    }
 }
@@ -0,0 +1,536 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.features;
+
+import com.bitmark.apiservice.params.Params;
+import com.bitmark.apiservice.utils.callback.Callback1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Runs bulk writes through separate stages connected by bounded queues:
+ * preparing the params, signing them on a pool sized to the CPUs, and
+ * submitting them with a bounded number of requests in flight. The params
+ * are serialized by the API service when they are submitted, on a submit
+ * thread. A full queue blocks the stage before it, so {@link #submit} blocks
+ * the producer when the pipeline cannot keep up.
+ *
+ * <pre>
+ * try (WritePipeline&lt;String, TransferParams, String&gt; pipeline =
+ *         WritePipeline.builder(
+ *                 (String id) -&gt; new TransferParams(receiver, id),
+ *                 params -&gt; params.sign(key),
+ *                 Bitmark::transfer
+ *         ).build()) {
+ *     for (String id : bitmarkIds) {
+ *         pipeline.submit(id, callback);
+ *     }
+ * }
+ * </pre>
+ *
+ * @param <I> the input of a write, e.g a bitmark id
+ * @param <P> the params built from the input
+ * @param <R> the result of the write, e.g a transaction id
+ */
+public class WritePipeline<I, P extends Params, R> implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Submitter<P, R> {
+
+        CompletableFuture<R> submit(P params);
+    }
+
+    private final Function<I, P> preparer;
+
+    private final Consumer<P> signer;
+
+    private final Submitter<P, R> submitter;
+
+    private final boolean ordered;
+
+    private final Stage prepareStage;
+
+    private final Stage signStage;
+
+    private final Stage submitStage;
+
+    private final Semaphore submissions;
+
+    private final long startedAt = System.nanoTime();
+
+    // Writes submitted and not completed yet
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Object completionLock = new Object();
+
+    // Completions waiting for the earlier writes when the order is kept
+    private final Map<Long, Runnable> outOfOrder = new TreeMap<>();
+
+    private long nextSequence;
+
+    private long nextToComplete;
+
+    private volatile boolean closed;
+
+    public static <I, P extends Params, R> Builder<I, P, R> builder(
+            Function<I, P> preparer,
+            Consumer<P> signer,
+            Submitter<P, R> submitter
+    ) {
+        return new Builder<>(preparer, signer, submitter);
+    }
+
+    private WritePipeline(Builder<I, P, R> builder) {
+        this.preparer = builder.preparer;
+        this.signer = builder.signer;
+        this.submitter = builder.submitter;
+        this.ordered = builder.ordered;
+        this.submissions = new Semaphore(builder.maxInFlight);
+        this.submitStage = new Stage(
+                "submit",
+                builder.queueCapacity,
+                1,
+                this::doSubmit
+        );
+        this.signStage = new Stage(
+                "sign",
+                builder.queueCapacity,
+                builder.signingThreads,
+                this::doSign
+        );
+        this.prepareStage = new Stage(
+                "prepare",
+                builder.queueCapacity,
+                builder.preparingThreads,
+                this::doPrepare
+        );
+    }
+
+    /**
+     * Queue a write, blocking while the first stage is full.
+     *
+     * @param input    the input of the write
+     * @param callback receives the result of the write, on a pipeline or
+     *                 network thread
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public void submit(I input, Callback1<R> callback)
+            throws InterruptedException {
+        // Counted before closed is read, so that close() either sees the
+        // write and waits for it, or the write sees closed and is rejected
+        pending.incrementAndGet();
+        if (closed) {
+            onDelivered();
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        Task task;
+        synchronized (completionLock) {
+            task = new Task(nextSequence++, input, callback);
+        }
+        try {
+            prepareStage.put(task);
+        } catch (InterruptedException e) {
+            complete(task, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return throughput and queue depth of the stages, in pipeline order
+     */
+    public List<StageStats> getStats() {
+        List<StageStats> stats = new ArrayList<>(3);
+        stats.add(prepareStage.stats());
+        stats.add(signStage.stats());
+        stats.add(submitStage.stats());
+        return Collections.unmodifiableList(stats);
+    }
+
+    /**
+     * @return number of writes submitted and not completed yet
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stop accepting writes and wait until the queued ones are completed.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean close(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        closed = true;
+        // Elapsed time is compared instead of a deadline, which would
+        // overflow for a very long timeout
+        long start = System.nanoTime();
+        long timeoutNanos = unit.toNanos(timeout);
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                long remaining = timeoutNanos - (System.nanoTime() - start);
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(pending, remaining);
+            }
+        }
+        prepareStage.shutdown();
+        signStage.shutdown();
+        submitStage.shutdown();
+        return prepareStage.awaitTermination(start, timeoutNanos)
+               && signStage.awaitTermination(start, timeoutNanos)
+               && submitStage.awaitTermination(start, timeoutNanos);
+    }
+
+    /**
+     * Stop accepting writes and wait until the queued ones are completed.
+     * If interrupted, it stops waiting and the thread stays interrupted.
+     */
+    @Override
+    public void close() {
+        try {
+            close(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void doPrepare(Task task) throws InterruptedException {
+        P params;
+        try {
+            params = preparer.apply(task.input);
+        } catch (Throwable e) {
+            complete(task, null, e);
+            return;
+        }
+        task.params = params;
+        signStage.put(task);
+    }
+
+    private void doSign(Task task) throws InterruptedException {
+        try {
+            signer.accept(task.params);
+        } catch (Throwable e) {
+            complete(task, null, e);
+            return;
+        }
+        submitStage.put(task);
+    }
+
+    private void doSubmit(Task task) throws InterruptedException {
+        submissions.acquire();
+        CompletableFuture<R> future;
+        try {
+            future = submitter.submit(task.params);
+            if (future == null) {
+                throw new NullPointerException("Submitter returned no future");
+            }
+        } catch (Throwable e) {
+            submissions.release();
+            complete(task, null, e);
+            return;
+        }
+        future.whenComplete((result, error) -> {
+            submissions.release();
+            complete(task, result, error);
+        });
+    }
+
+    private void complete(Task task, R result, Throwable error) {
+        Throwable cause = error instanceof CompletionException
+                                  && error.getCause() != null
+                          ? error.getCause()
+                          : error;
+        Runnable delivery = () -> {
+            if (cause == null) {
+                task.callback.onSuccess(result);
+            } else {
+                task.callback.onError(cause);
+            }
+        };
+        if (!ordered) {
+            deliver(delivery);
+            return;
+        }
+
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (completionLock) {
+            outOfOrder.put(task.sequence, delivery);
+            Runnable next;
+            while ((next = outOfOrder.remove(nextToComplete)) != null) {
+                ready.add(next);
+                nextToComplete++;
+            }
+        }
+        // The ready deliveries are no longer queued, a throwing callback
+        // must not lose the ones after it
+        RuntimeException failure = null;
+        for (Runnable next : ready) {
+            try {
+                deliver(next);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void deliver(Runnable delivery) {
+        try {
+            delivery.run();
+        } finally {
+            onDelivered();
+        }
+    }
+
+    private void onDelivered() {
+        if (pending.decrementAndGet() == 0) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    public static final class StageStats {
+
+        private final String name;
+
+        private final long processedCount;
+
+        private final int queued;
+
+        private final double throughput;
+
+        private StageStats(
+                String name,
+                long processedCount,
+                int queued,
+                double throughput
+        ) {
+            this.name = name;
+            this.processedCount = processedCount;
+            this.queued = queued;
+            this.throughput = throughput;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getProcessedCount() {
+            return processedCount;
+        }
+
+        /**
+         * @return number of writes waiting in the queue of the stage
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * @return writes processed per second since the pipeline started
+         */
+        public double getThroughput() {
+            return throughput;
+        }
+    }
+
+    private final class Task {
+
+        private final long sequence;
+
+        private final I input;
+
+        private final Callback1<R> callback;
+
+        private P params;
+
+        private Task(long sequence, I input, Callback1<R> callback) {
+            this.sequence = sequence;
+            this.input = input;
+            this.callback = callback;
+        }
+    }
+
+    private interface Worker<T> {
+
+        void process(T task) throws InterruptedException;
+    }
+
+    private final class Stage {
+
+        private final String name;
+
+        private final BlockingQueue<Task> queue;
+
+        private final ExecutorService executor;
+
+        private final LongAdder processedCount = new LongAdder();
+
+        private Stage(
+                String name,
+                int capacity,
+                int threads,
+                Worker<Task> worker
+        ) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(
+                        runnable,
+                        "Bitmark Write Pipeline " + name
+                );
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        while (!Thread.currentThread().isInterrupted()) {
+                            Task task = queue.take();
+                            try {
+                                worker.process(task);
+                            } catch (RuntimeException ignore) {
+                                // Thrown by a callback, the write is
+                                // completed already
+                            }
+                            processedCount.increment();
+                        }
+                    } catch (InterruptedException ignore) {
+                        // The pipeline is closed
+                    }
+                });
+            }
+        }
+
+        private void put(Task task) throws InterruptedException {
+            queue.put(task);
+        }
+
+        private void shutdown() {
+            executor.shutdownNow();
+        }
+
+        private boolean awaitTermination(long start, long timeoutNanos)
+                throws InterruptedException {
+            return executor.awaitTermination(
+                    timeoutNanos - (System.nanoTime() - start),
+                    TimeUnit.NANOSECONDS
+            );
+        }
+
+        private StageStats stats() {
+            long processed = processedCount.sum();
+            double elapsed = (System.nanoTime() - startedAt) / 1e9;
+            return new StageStats(
+                    name,
+                    processed,
+                    queue.size(),
+                    elapsed > 0 ? processed / elapsed : 0
+            );
+        }
+    }
+
+    public static final class Builder<I, P extends Params, R> {
+
+        private final Function<I, P> preparer;
+
+        private final Consumer<P> signer;
+
+        private final Submitter<P, R> submitter;
+
+        private int preparingThreads = 1;
+
+        private int signingThreads = Runtime.getRuntime().availableProcessors();
+
+        private int maxInFlight = 8;
+
+        private int queueCapacity = 64;
+
+        private boolean ordered;
+
+        private Builder(
+                Function<I, P> preparer,
+                Consumer<P> signer,
+                Submitter<P, R> submitter
+        ) {
+            this.preparer = preparer;
+            this.signer = signer;
+            this.submitter = submitter;
+        }
+
+        public Builder<I, P, R> withPreparingThreads(int preparingThreads) {
+            this.preparingThreads = preparingThreads;
+            return this;
+        }
+
+        public Builder<I, P, R> withSigningThreads(int signingThreads) {
+            this.signingThreads = signingThreads;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight maximum number of writes submitted to the API
+         *                    and not answered yet
+         */
+        public Builder<I, P, R> withMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param queueCapacity capacity of the queue in front of each stage
+         */
+        public Builder<I, P, R> withQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param ordered true to complete the writes in the order they were
+         *                submitted. A slow write then holds back the
+         *                callbacks of the later ones.
+         */
+        public Builder<I, P, R> withOrderedCompletion(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        public WritePipeline<I, P, R> build() {
+            checkValid(
+                    () -> preparer != null && signer != null && submitter != null,
+                    "preparer, signer and submitter are required"
+            );
+            checkValid(
+                    () -> preparingThreads > 0 && signingThreads > 0,
+                    "thread counts must be positive"
+            );
+            checkValid(() -> maxInFlight > 0, "max in flight must be positive");
+            checkValid(
+                    () -> queueCapacity > 0,
+                    "queue capacity must be positive"
+            );
+            return new WritePipeline<>(this);
+        }
+    }
+}
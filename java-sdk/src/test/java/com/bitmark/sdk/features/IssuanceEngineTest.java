@@ -0,0 +1,237 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.features;
+
+import com.bitmark.apiservice.BitmarkApi;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.error.HttpException;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.cryptography.crypto.Ed25519;
+import com.bitmark.cryptography.error.ValidateException;
+import com.bitmark.sdk.test.unittest.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IssuanceEngineTest extends BaseTest {
+
+    private static final String ASSET_ID =
+            "0e0b4e3bd771811d35a23707ba6197aa1dd5937439a221eaf8e7909309e7b31b6c0e06a1001c261a099abf04c560199db898bc154cf128aa9efa5efd36030c64";
+
+    private final Account issuer = new Account(
+            Ed25519.generateKeyPair().privateKey());
+
+    @Test
+    public void testIssue_QuantityOverBatchSize_SplitIntoBatches()
+            throws Exception {
+        FakeApi api = new FakeApi();
+        List<String> ids = Collections.synchronizedList(new ArrayList<>());
+
+        long issued = issue(
+                api,
+                250,
+                IssuanceOptions.builder()
+                        .withBatchSize(100)
+                        .withIssuedListener(ids::addAll)
+                        .build()
+        );
+
+        assertEquals(250, issued);
+        assertEquals(Arrays.asList(100, 100, 50), api.batchSizes);
+        assertEquals(250, ids.size());
+        // The nonces, and so the bitmark ids, are unique across batches
+        assertEquals(250, new HashSet<>(ids).size());
+    }
+
+    @Test
+    public void testIssue_ManyBatches_FirstBatchIssuedAlone() throws Exception {
+        FakeApi api = new FakeApi();
+        api.holdFirst = true;
+        CompletableFuture<Long> result = start(
+                api,
+                300,
+                IssuanceOptions.builder()
+                        .withBatchSize(100)
+                        .withParallelism(4)
+                        .build()
+        );
+
+        api.firstCalled.get(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        assertEquals(1, api.batchSizes.size());
+
+        api.releaseFirst();
+        assertEquals(300, (long) result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, api.batchSizes.size());
+    }
+
+    @Test
+    public void testIssue_BatchFails_StoppedWithFirstError() {
+        FakeApi api = new FakeApi();
+        api.failingBatch = 2;
+
+        HttpException e = assertThrows(
+                HttpException.class,
+                () -> issue(
+                        api,
+                        500,
+                        IssuanceOptions.builder().withParallelism(1).build()
+                )
+        );
+        assertEquals(500, e.getStatusCode());
+        assertEquals(2, api.batchSizes.size());
+    }
+
+    @Test
+    public void testIssue_IssuedListenerThrows_ErrorDelivered() {
+        FakeApi api = new FakeApi();
+
+        IllegalStateException e = assertThrows(
+                IllegalStateException.class,
+                () -> issue(
+                        api,
+                        300,
+                        IssuanceOptions.builder()
+                                .withIssuedListener(ids -> {
+                                    throw new IllegalStateException("Listener");
+                                })
+                                .build()
+                )
+        );
+        assertEquals("Listener", e.getMessage());
+        assertEquals(1, api.batchSizes.size());
+    }
+
+    @Test
+    public void testBuildOptions_BatchSizeOverLimit_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> IssuanceOptions.builder().withBatchSize(101).build()
+        );
+    }
+
+    private long issue(FakeApi api, int quantity, IssuanceOptions options)
+            throws Exception {
+        try {
+            return start(api, quantity, options).get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private CompletableFuture<Long> start(
+            FakeApi api,
+            int quantity,
+            IssuanceOptions options
+    ) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        BitmarkApi proxy = (BitmarkApi) Proxy.newProxyInstance(
+                BitmarkApi.class.getClassLoader(),
+                new Class<?>[]{BitmarkApi.class},
+                api
+        );
+        new IssuanceEngine(proxy, issuer, ASSET_ID, quantity, options).start(
+                new Callback1<Long>() {
+                    @Override
+                    public void onSuccess(Long data) {
+                        result.complete(data);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        result.completeExceptionally(throwable);
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Issues one bitmark per nonce, inline unless the first batch is held
+     */
+    private static final class FakeApi implements InvocationHandler {
+
+        private final List<Integer> batchSizes = Collections.synchronizedList(
+                new ArrayList<>());
+
+        private final CompletableFuture<Void> firstCalled =
+                new CompletableFuture<>();
+
+        private volatile boolean holdFirst;
+
+        private volatile int failingBatch;
+
+        private Runnable heldFirst;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (!"issueBitmark".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            IssuanceParams params = (IssuanceParams) args[0];
+            Callback1<List<BitmarkRecord>> callback =
+                    (Callback1<List<BitmarkRecord>>) args[1];
+            int[] nonces = params.getNoncesPair().second();
+            batchSizes.add(nonces.length);
+            int batch = batchSizes.size();
+            Runnable completion = () -> {
+                if (batch == failingBatch) {
+                    callback.onError(new HttpException(500, "Failed"));
+                } else {
+                    callback.onSuccess(bitmarks(nonces));
+                }
+            };
+            if (batch == 1 && holdFirst) {
+                synchronized (this) {
+                    heldFirst = completion;
+                }
+                firstCalled.complete(null);
+            } else {
+                completion.run();
+            }
+            return null;
+        }
+
+        private synchronized void releaseFirst() {
+            heldFirst.run();
+        }
+
+        private static List<BitmarkRecord> bitmarks(int[] nonces) {
+            List<BitmarkRecord> bitmarks = new ArrayList<>(nonces.length);
+            for (int nonce : nonces) {
+                bitmarks.add(new IssuedBitmark("bitmark-" + nonce));
+            }
+            return bitmarks;
+        }
+    }
+
+    /**
+     * A bitmark that only has an id, as if issued by the server
+     */
+    private static final class IssuedBitmark extends BitmarkRecord {
+
+        private final String id;
+
+        private IssuedBitmark(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+    }
+}
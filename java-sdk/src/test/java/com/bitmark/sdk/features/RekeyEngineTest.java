@@ -0,0 +1,369 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.features;
+
+import com.bitmark.apiservice.BitmarkApi;
+import com.bitmark.apiservice.params.TransferOfferParams;
+import com.bitmark.apiservice.params.TransferResponseParams;
+import com.bitmark.apiservice.response.GetBitmarkResponse;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.error.HttpException;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.OfferRecord;
+import com.bitmark.cryptography.crypto.Ed25519;
+import com.bitmark.cryptography.error.ValidateException;
+import com.bitmark.sdk.test.unittest.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RekeyEngineTest extends BaseTest {
+
+    private static final String SIGNATURE = String.join(
+            "",
+            Collections.nCopies(128, "a")
+    );
+
+    private final Account from = new Account(
+            Ed25519.generateKeyPair().privateKey());
+
+    private final Account to = new Account(
+            Ed25519.generateKeyPair().privateKey());
+
+    @Test
+    public void testRekey_CheckpointFile_CheckpointedSkippedAndResumed()
+            throws Exception {
+        File checkpoint = File.createTempFile("rekey", ".checkpoint");
+        checkpoint.deleteOnExit();
+        // The second line was cut by an interruption
+        write(checkpoint, "b1\ttx-b1\nb2\t");
+        FakeApi api = new FakeApi(bitmark("b1"), bitmark("b2"), bitmark("b3"));
+
+        List<String> txIds = rekey(
+                api,
+                RekeyOptions.builder().withCheckpointFile(checkpoint).build()
+        );
+
+        assertEquals(Arrays.asList("b2", "b3"), api.offered);
+        assertEquals(Arrays.asList("b2", "b3"), api.responded);
+        assertEquals(Arrays.asList("tx-b1", "tx-b2", "tx-b3"), txIds);
+        assertEquals(
+                "b1\ttx-b1\nb2\t\nb2\ttx-b2\nb3\ttx-b3\n",
+                read(checkpoint)
+        );
+    }
+
+    @Test
+    public void testRekey_OfferedToNewOwner_OnlyResponded() throws Exception {
+        OwnedBitmark offered = bitmark("b1");
+        offered.offer = offer("b1", to.getAccountNumber());
+        FakeApi api = new FakeApi(offered, bitmark("b2"));
+
+        List<String> txIds = rekey(api, RekeyOptions.builder().build());
+
+        assertEquals(Collections.singletonList("b2"), api.offered);
+        assertEquals(Arrays.asList("b1", "b2"), api.responded);
+        assertEquals(Arrays.asList("tx-b1", "tx-b2"), txIds);
+    }
+
+    @Test
+    public void testRekey_TransferFails_StoppedWithFirstError() {
+        FakeApi api = new FakeApi(bitmark("b1"), bitmark("b2"), bitmark("b3"));
+        api.failing = "b2";
+
+        HttpException e = assertThrows(
+                HttpException.class,
+                () -> rekey(
+                        api,
+                        RekeyOptions.builder().withParallelism(1).build()
+                )
+        );
+        assertEquals(500, e.getStatusCode());
+        assertEquals(Arrays.asList("b1", "b2"), api.responded);
+    }
+
+    @Test
+    public void testRekey_ProgressListenerThrows_ErrorDelivered() {
+        FakeApi api = new FakeApi(bitmark("b1"), bitmark("b2"));
+
+        IllegalStateException e = assertThrows(
+                IllegalStateException.class,
+                () -> rekey(
+                        api,
+                        RekeyOptions.builder().withParallelism(1)
+                                .withProgressListener(transferred -> {
+                                    throw new IllegalStateException("Listener");
+                                })
+                                .build()
+                )
+        );
+        assertEquals("Listener", e.getMessage());
+        assertEquals(Collections.singletonList("b1"), api.responded);
+    }
+
+    @Test
+    public void testBuildOptions_InvalidParallelism_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> RekeyOptions.builder().withParallelism(0).build()
+        );
+    }
+
+    private List<String> rekey(FakeApi api, RekeyOptions options)
+            throws Exception {
+        CompletableFuture<List<String>> result = new CompletableFuture<>();
+        new RekeyEngine(proxy(api), from, to, options).start(
+                new Callback1<List<String>>() {
+                    @Override
+                    public void onSuccess(List<String> data) {
+                        result.complete(data);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        result.completeExceptionally(throwable);
+                    }
+                });
+        try {
+            return result.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private OwnedBitmark bitmark(String id) {
+        return new OwnedBitmark(id, headId(id), from.getAccountNumber());
+    }
+
+    private SignedOffer offer(String bitmarkId, String receiver) {
+        return new SignedOffer(
+                "offer-" + bitmarkId,
+                receiver,
+                headId(bitmarkId),
+                from.getAccountNumber()
+        );
+    }
+
+    private static String headId(String bitmarkId) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bitmarkId.getBytes(StandardCharsets.UTF_8)) {
+            hex.append(String.format("%02x", b));
+        }
+        while (hex.length() < 64) {
+            hex.append('0');
+        }
+        return hex.toString();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(
+                Files.readAllBytes(file.toPath()),
+                StandardCharsets.UTF_8
+        );
+    }
+
+    /**
+     * Answers inline, and records the bitmarks offered and responded in
+     * order
+     */
+    private final class FakeApi implements InvocationHandler {
+
+        private final Map<String, OwnedBitmark> bitmarks =
+                new LinkedHashMap<>();
+
+        // Link to bitmark id
+        private final Map<String, String> links = new HashMap<>();
+
+        private final List<String> offered = Collections.synchronizedList(
+                new ArrayList<>());
+
+        private final List<String> responded = Collections.synchronizedList(
+                new ArrayList<>());
+
+        private boolean listed;
+
+        private String failing;
+
+        private FakeApi(OwnedBitmark... records) {
+            for (OwnedBitmark record : records) {
+                bitmarks.put(record.getId(), record);
+                links.put(record.getHeadId(), record.getId());
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "listBitmarks": {
+                    List<BitmarkRecord> page = listed
+                                               ? Collections.emptyList()
+                                               : new ArrayList<>(bitmarks.values());
+                    listed = true;
+                    ((Callback1<GetBitmarksResponse>) args[1]).onSuccess(
+                            new GetBitmarksResponse(page, null));
+                    return null;
+                }
+                case "offerBitmark": {
+                    TransferOfferParams params = (TransferOfferParams) args[0];
+                    String id = links.get(params.getLink());
+                    offered.add(id);
+                    bitmarks.get(id).offer = offer(
+                            id,
+                            params.getReceiver().getAddress()
+                    );
+                    ((Callback1<String>) args[1]).onSuccess("offer-" + id);
+                    return null;
+                }
+                case "getBitmark": {
+                    ((Callback1<GetBitmarkResponse>) args[2]).onSuccess(
+                            new GetBitmarkResponse(
+                                    bitmarks.get((String) args[0]),
+                                    null
+                            ));
+                    return null;
+                }
+                case "respondBitmarkOffer": {
+                    String id = offerId((TransferResponseParams) args[0])
+                            .substring(6);
+                    responded.add(id);
+                    Callback1<String> callback = (Callback1<String>) args[1];
+                    if (id.equals(failing)) {
+                        callback.onError(new HttpException(500, "Failed"));
+                    } else {
+                        callback.onSuccess("tx-" + id);
+                    }
+                    return null;
+                }
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private String offerId(TransferResponseParams params) {
+            String json = params.toJson();
+            int start = json.indexOf("\"id\":\"") + 6;
+            return json.substring(start, json.indexOf('"', start));
+        }
+    }
+
+    private BitmarkApi proxy(FakeApi api) {
+        return (BitmarkApi) Proxy.newProxyInstance(
+                BitmarkApi.class.getClassLoader(),
+                new Class<?>[]{BitmarkApi.class},
+                api
+        );
+    }
+
+    /**
+     * A bitmark owned by the old account, as listed by the server
+     */
+    private static final class OwnedBitmark extends BitmarkRecord {
+
+        private final String id;
+
+        private final String headId;
+
+        private final String owner;
+
+        private volatile OfferRecord offer;
+
+        private OwnedBitmark(String id, String headId, String owner) {
+            this.id = id;
+            this.headId = headId;
+            this.owner = owner;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getHeadId() {
+            return headId;
+        }
+
+        @Override
+        public String getOwner() {
+            return owner;
+        }
+
+        @Override
+        public OfferRecord getOffer() {
+            return offer;
+        }
+
+        @Override
+        public boolean isOffer() {
+            return offer != null;
+        }
+    }
+
+    /**
+     * An offer of the head of a bitmark, signed by its owner
+     */
+    private static final class SignedOffer extends OfferRecord {
+
+        private final String id;
+
+        private final String to;
+
+        private final String link;
+
+        private final String owner;
+
+        private SignedOffer(String id, String to, String link, String owner) {
+            this.id = id;
+            this.to = to;
+            this.link = link;
+            this.owner = owner;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getTo() {
+            return to;
+        }
+
+        @Override
+        public String getLink() {
+            return link;
+        }
+
+        @Override
+        public String getOwner() {
+            return owner;
+        }
+
+        @Override
+        public String getSignature() {
+            return SIGNATURE;
+        }
+    }
+}
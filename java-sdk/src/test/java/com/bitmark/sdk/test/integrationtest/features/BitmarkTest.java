@@ -29,6 +29,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import java.io.File;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -520,6 +523,46 @@ public class BitmarkTest extends BaseTest {
         assertEquals(id, bitmark.getId());
     }
 
+    @Test
+    public void testQueryBitmarkByIdFuture_ExistedBitmarkId_FutureCompletedWithBitmark()
+            throws Throwable {
+        // Get owned bitmarks
+        BitmarkQueryBuilder builder =
+                new BitmarkQueryBuilder()
+                        .ownedBy(ACCOUNT1.getAccountNumber())
+                        .limit(1);
+        GetBitmarksResponse bitmarksResponse =
+                Bitmark.list(builder).get(30, TimeUnit.SECONDS);
+        assertFalse(
+                bitmarksResponse.getBitmarks().isEmpty(),
+                "This guy has not owned bitmarks"
+        );
+
+        // Get bitmark by id
+        String id = bitmarksResponse.getBitmarks().get(0).getId();
+        GetBitmarkResponse bitmarkResponse =
+                Bitmark.getWithAsset(id).get(30, TimeUnit.SECONDS);
+        assertEquals(id, bitmarkResponse.getBitmark().getId());
+        assertNotNull(bitmarkResponse.getAsset());
+    }
+
+    @Test
+    public void testQueryBitmarkByIdFuture_NotExistedBitmarkId_FutureCompletedWithError() {
+        String id =
+                "12345678901234567890123456789012345678901234567890123456789012341234567890123456789012345678901234567890123456789012345678901234";
+        CompletableFuture<GetBitmarkResponse> future = Bitmark.get(id);
+
+        ExecutionException exception = assertThrows(
+                ExecutionException.class,
+                () -> future.get(30, TimeUnit.SECONDS)
+        );
+        assertTrue(exception.getCause() instanceof HttpException);
+        assertEquals(
+                HTTP_NOT_FOUND,
+                ((HttpException) exception.getCause()).getStatusCode()
+        );
+    }
+
     @Test
     public void testQueryBitmarksByIds_ValidBitmarkIds_CorrectResponseIsReturn()
             throws Throwable {
@@ -0,0 +1,257 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.test.unittest.features;
+
+import com.bitmark.apiservice.params.Params;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.sdk.features.WritePipeline;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WritePipelineTest {
+
+    @Test
+    public void testSubmit_OrderedCompletion_CompletedInSubmissionOrder()
+            throws Exception {
+        List<CompletableFuture<String>> futures = Collections.synchronizedList(
+                new ArrayList<>());
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        WritePipeline<Integer, FakeParams, String> pipeline = WritePipeline
+                .builder(FakeParams::new, FakeParams::sign, params -> {
+                    CompletableFuture<String> future = new CompletableFuture<>();
+                    futures.add(future);
+                    return future;
+                })
+                .withOrderedCompletion(true)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            pipeline.submit(i, collect(results));
+        }
+        waitUntil(() -> futures.size() == 3);
+        for (int i = 2; i >= 0; i--) {
+            futures.get(i).complete("tx" + i);
+        }
+        assertTrue(pipeline.close(5, TimeUnit.SECONDS));
+
+        assertEquals(3, results.size());
+        List<String> sorted = new ArrayList<>(results);
+        Collections.sort(sorted);
+        assertEquals(sorted, results);
+    }
+
+    @Test
+    public void testSubmit_SignFails_ErrorDelivered() throws Exception {
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        WritePipeline<Integer, FakeParams, String> pipeline = WritePipeline
+                .builder(
+                        FakeParams::new,
+                        params -> {
+                            if (params.input == 1) {
+                                throw new IllegalArgumentException("Invalid key pair");
+                            }
+                            params.sign();
+                        },
+                        params -> CompletableFuture.completedFuture("tx" + params.input)
+                )
+                .build();
+
+        pipeline.submit(0, collect(results));
+        pipeline.submit(1, collect(results));
+        assertTrue(pipeline.close(5, TimeUnit.SECONDS));
+
+        assertEquals(2, results.size());
+        assertTrue(results.contains("tx0"));
+        assertTrue(results.contains("error Invalid key pair"));
+    }
+
+    @Test
+    public void testSubmit_SubmitterReturnsNull_ErrorDeliveredAndClosed()
+            throws Exception {
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        WritePipeline<Integer, FakeParams, String> pipeline = WritePipeline
+                .builder(
+                        FakeParams::new,
+                        FakeParams::sign,
+                        params -> params.input == 1
+                                  ? null
+                                  : CompletableFuture.completedFuture(
+                                          "tx" + params.input)
+                )
+                .withMaxInFlight(1)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            pipeline.submit(i, collect(results));
+        }
+        assertTrue(pipeline.close(5, TimeUnit.SECONDS));
+
+        assertEquals(3, results.size());
+        assertTrue(results.contains("tx0"));
+        assertTrue(results.contains("tx2"));
+        assertTrue(results.contains("error Submitter returned no future"));
+    }
+
+    @Test
+    public void testSubmit_MaxInFlightReached_ProducerBlocked() throws Exception {
+        CompletableFuture<String> blocked = new CompletableFuture<>();
+        WritePipeline<Integer, FakeParams, String> pipeline = WritePipeline
+                .builder(FakeParams::new, FakeParams::sign, params -> blocked)
+                .withMaxInFlight(1)
+                .withQueueCapacity(1)
+                .withSigningThreads(1)
+                .build();
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 10; i++) {
+                    pipeline.submit(i, collect(new ArrayList<>()));
+                }
+                submitted.countDown();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        producer.start();
+
+        assertFalse(submitted.await(500, TimeUnit.MILLISECONDS));
+        assertTrue(pipeline.getPendingCount() < 10);
+
+        blocked.complete("tx");
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        assertTrue(pipeline.close(5, TimeUnit.SECONDS));
+        List<WritePipeline.StageStats> stats = pipeline.getStats();
+        assertEquals("prepare", stats.get(0).getName());
+        assertEquals(10, stats.get(0).getProcessedCount());
+        assertEquals(10, stats.get(2).getProcessedCount());
+        assertEquals(0, stats.get(2).getQueued());
+    }
+
+    @Test
+    public void testSubmit_Closed_Rejected() throws Exception {
+        WritePipeline<Integer, FakeParams, String> pipeline = WritePipeline
+                .builder(
+                        FakeParams::new,
+                        FakeParams::sign,
+                        params -> CompletableFuture.completedFuture("tx")
+                )
+                .build();
+        pipeline.close();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> pipeline.submit(0, collect(new ArrayList<>()))
+        );
+    }
+
+    @Test
+    public void testSubmit_OrderedCallbackThrows_LaterWritesDelivered()
+            throws Exception {
+        List<CompletableFuture<String>> futures = Collections.synchronizedList(
+                new ArrayList<>());
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        WritePipeline<Integer, FakeParams, String> pipeline = WritePipeline
+                .builder(FakeParams::new, FakeParams::sign, params -> {
+                    CompletableFuture<String> future = new CompletableFuture<>();
+                    futures.add(future);
+                    return future;
+                })
+                .withOrderedCompletion(true)
+                .build();
+
+        pipeline.submit(0, new Callback1<String>() {
+            @Override
+            public void onSuccess(String data) {
+                throw new IllegalStateException("Callback");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        });
+        pipeline.submit(1, collect(results));
+        pipeline.submit(2, collect(results));
+        waitUntil(() -> futures.size() == 3);
+        futures.get(2).complete("tx2");
+        futures.get(1).complete("tx1");
+        futures.get(0).complete("tx0");
+
+        assertTrue(pipeline.close(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("tx1", "tx2"), results);
+    }
+
+    @Test
+    public void testClose_Interrupted_InterruptKept() throws Exception {
+        WritePipeline<Integer, FakeParams, String> pipeline = WritePipeline
+                .builder(
+                        FakeParams::new,
+                        FakeParams::sign,
+                        params -> new CompletableFuture<String>()
+                )
+                .build();
+        pipeline.submit(0, collect(new ArrayList<>()));
+
+        Thread.currentThread().interrupt();
+        pipeline.close();
+
+        assertTrue(Thread.interrupted());
+        assertEquals(1, pipeline.getPendingCount());
+    }
+
+    private static Callback1<String> collect(List<String> results) {
+        return new Callback1<String>() {
+            @Override
+            public void onSuccess(String data) {
+                results.add(data);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                results.add("error " + throwable.getMessage());
+            }
+        };
+    }
+
+    private static void waitUntil(Callable<Boolean> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.call()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class FakeParams implements Params {
+
+        private final int input;
+
+        private volatile boolean signed;
+
+        private FakeParams(int input) {
+            this.input = input;
+        }
+
+        private void sign() {
+            signed = true;
+        }
+
+        @Override
+        public String toJson() {
+            return "{\"id\":" + input + "}";
+        }
+
+        @Override
+        public boolean isSigned() {
+            return signed;
+        }
+    }
+}